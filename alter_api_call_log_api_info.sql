@@ -0,0 +1,20 @@
+-- 调用日志冗余接口信息：写入时由 ApiMetricsAspect 填充，列表查询直接按列过滤，不再二次查询 api_info
+
+ALTER TABLE api_call_log
+    ADD COLUMN api_path VARCHAR(255) NULL COMMENT '接口路径（写入时冗余）',
+    ADD COLUMN method VARCHAR(16) NULL COMMENT '请求方法（写入时冗余）',
+    ADD COLUMN api_name VARCHAR(100) NULL COMMENT '接口名称（写入时冗余）';
+
+-- 回填历史数据（大表请按 id 范围分批执行）
+UPDATE api_call_log l
+    JOIN api_info a ON a.id = l.api_id
+SET l.api_path = a.api_path,
+    l.method   = a.method,
+    l.api_name = a.api_name
+WHERE l.api_path IS NULL;
+
+-- 管理员按接口路径（前缀）过滤，不带AK时只读取匹配该前缀的索引行，再按 (call_time, id) 排序取一页
+ALTER TABLE api_call_log ADD INDEX idx_path_time (api_path, call_time, id);
+
+-- 用户按接口路径过滤自己的日志不单独建索引：沿 idx_user_time (user_id, call_time, id) 倒序扫描、逐行过滤 api_path，
+-- 无需排序且读满一页即停；(user_id, api_path, call_time, id) 因 api_path 为前缀范围条件，反而需要对全部匹配行排序
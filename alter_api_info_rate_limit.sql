@@ -0,0 +1,11 @@
+-- 接口级限流配置字段
+-- rate_limit_count 为空或 <= 0 时使用全局默认限流（api.rate-limit.*）
+
+ALTER TABLE api_info
+    ADD COLUMN rate_limit_algorithm VARCHAR(32) NULL COMMENT '限流算法：TOKEN_BUCKET/SLIDING_WINDOW，为空使用全局默认',
+    ADD COLUMN rate_limit_count INT NULL COMMENT '每个调用方在限流窗口内允许的请求数',
+    ADD COLUMN rate_limit_window INT NULL COMMENT '限流窗口（秒）';
+
+-- 示例：天气查询接口每个调用方每分钟最多30次（令牌桶）
+-- UPDATE api_info SET rate_limit_algorithm = 'TOKEN_BUCKET', rate_limit_count = 30, rate_limit_window = 60
+-- WHERE api_path = '/api/business/weather/query';
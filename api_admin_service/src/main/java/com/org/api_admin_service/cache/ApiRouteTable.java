@@ -0,0 +1,169 @@
+package com.org.api_admin_service.cache;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.org.api_admin_service.mapper.ApiInfoMapper;
+import com.org.api_common.constant.CacheKeyConstants;
+import com.org.api_common.entity.ApiInfo;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 接口路由表（method + path -> 启用状态的ApiInfo）
+ * 1. 整表构建为不可变快照，通过volatile引用原子替换，读路径无锁、无分配
+ * 2. 接口增删改/启停提交后重建，并广播其他节点重建
+ * 3. 定时全量刷新兜底
+ * 4. 同时维护启用接口目录（按ID排序的列表、ID索引），供统计等需要遍历接口的场景使用，避免每次查库
+ */
+@Slf4j
+@Component
+public class ApiRouteTable implements MessageListener {
+
+    @Autowired
+    private ApiInfoMapper apiInfoMapper;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired(required = false)
+    private RedisMessageListenerContainer listenerContainer;
+
+    /** 当前快照：method -> (path -> ApiInfo)，null表示尚未加载 */
+    private volatile Map<String, Map<String, ApiInfo>> routes;
+
+    /** 启用接口目录快照，与 routes 同时替换 */
+    private volatile List<ApiInfo> enabledApis = List.of();
+    private volatile Map<Long, ApiInfo> enabledById = Map.of();
+
+    @PostConstruct
+    public void subscribe() {
+        if (listenerContainer != null) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(CacheKeyConstants.API_ROUTE_REFRESH_CHANNEL));
+        }
+    }
+
+    /**
+     * 查询启用状态的接口
+     * @return 共享只读对象，调用方不得修改；未注册或已禁用返回null
+     */
+    public ApiInfo lookup(String apiPath, String method) {
+        Map<String, Map<String, ApiInfo>> snapshot = routes;
+        if (snapshot == null) {
+            snapshot = rebuild();
+        }
+        Map<String, ApiInfo> byPath = snapshot.get(method.toUpperCase());
+        return byPath != null ? byPath.get(apiPath) : null;
+    }
+
+    /**
+     * 启用状态的接口目录（按ID升序）
+     * @return 共享只读列表，调用方不得修改其中对象
+     */
+    public List<ApiInfo> enabledApis() {
+        if (routes == null) {
+            rebuild();
+        }
+        return enabledApis;
+    }
+
+    /**
+     * 按ID查询启用状态的接口
+     * @return 共享只读对象；不存在或已禁用返回null
+     */
+    public ApiInfo getEnabledById(Long apiId) {
+        if (routes == null) {
+            rebuild();
+        }
+        return apiId != null ? enabledById.get(apiId) : null;
+    }
+
+    /**
+     * 接口数据变更后调用：事务提交后（无事务则立即）重建本节点并广播
+     */
+    public void refreshAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    rebuildAndPublish();
+                }
+            });
+        } else {
+            rebuildAndPublish();
+        }
+    }
+
+    /**
+     * 定时全量刷新（兜底失效广播丢失）
+     */
+    @Scheduled(fixedDelayString = "${api.cache.route.refresh-ms:60000}")
+    public void scheduledRefresh() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("[ApiRoute] 定时刷新路由表失败，继续使用旧快照", e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        rebuild();
+    }
+
+    /**
+     * 全量加载启用接口并替换快照
+     */
+    public synchronized Map<String, Map<String, ApiInfo>> rebuild() {
+        LambdaQueryWrapper<ApiInfo> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(ApiInfo::getStatus, 1)
+                .orderByAsc(ApiInfo::getId);
+        List<ApiInfo> apiList = apiInfoMapper.selectList(wrapper);
+
+        Map<String, Map<String, ApiInfo>> building = new HashMap<>();
+        Map<Long, ApiInfo> byId = new HashMap<>(apiList.size() * 2);
+        for (ApiInfo apiInfo : apiList) {
+            byId.put(apiInfo.getId(), apiInfo);
+            if (apiInfo.getMethod() == null || apiInfo.getApiPath() == null) {
+                continue;
+            }
+            Map<String, ApiInfo> byPath = building.computeIfAbsent(apiInfo.getMethod().toUpperCase(), k -> new HashMap<>());
+            ApiInfo existing = byPath.putIfAbsent(apiInfo.getApiPath(), apiInfo);
+            if (existing != null) {
+                log.warn("[ApiRoute] 存在重复的启用接口，保留ID较先的记录: {} {}, ids={},{}",
+                        apiInfo.getMethod(), apiInfo.getApiPath(), existing.getId(), apiInfo.getId());
+            }
+        }
+
+        Map<String, Map<String, ApiInfo>> snapshot = new HashMap<>(building.size() * 2);
+        building.forEach((method, byPath) -> snapshot.put(method, Map.copyOf(byPath)));
+        Map<String, Map<String, ApiInfo>> immutable = Collections.unmodifiableMap(snapshot);
+        enabledApis = List.copyOf(apiList);
+        enabledById = Map.copyOf(byId);
+        routes = immutable;
+        log.debug("[ApiRoute] 路由表已重建，启用接口数: {}", apiList.size());
+        return immutable;
+    }
+
+    private void rebuildAndPublish() {
+        rebuild();
+        try {
+            redisTemplate.convertAndSend(CacheKeyConstants.API_ROUTE_REFRESH_CHANNEL, "1");
+        } catch (Exception e) {
+            log.error("[ApiRoute] 广播路由表刷新失败，其他节点依赖定时刷新", e);
+        }
+    }
+}
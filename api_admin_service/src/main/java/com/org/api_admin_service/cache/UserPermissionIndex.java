@@ -0,0 +1,260 @@
+package com.org.api_admin_service.cache;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.org.api_admin_service.mapper.ApiPermissionMapper;
+import com.org.api_common.constant.CacheKeyConstants;
+import com.org.api_common.entity.ApiPermission;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 用户接口权限索引（userId -> 有序apiId数组 + 对应过期时间戳）
+ * 1. 首次校验时从 api_permission 懒加载，不关联 api_info、不构建VO
+ * 2. 权限校验为有序数组二分查找，无装箱、无分配；过期权限在校验时惰性判定
+ * 3. 开通/撤销在事务提交后增量合并到本节点索引，并广播其他节点清除该用户索引
+ */
+@Slf4j
+@Component
+public class UserPermissionIndex implements MessageListener {
+
+    /** 永不过期 */
+    private static final long NEVER_EXPIRE = Long.MAX_VALUE;
+
+    /** 本节点标识，收到自己发出的广播时跳过（本节点已增量更新） */
+    private static final String NODE_ID = UUID.randomUUID().toString().replace("-", "");
+
+    @Autowired
+    private ApiPermissionMapper apiPermissionMapper;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired(required = false)
+    private RedisMessageListenerContainer listenerContainer;
+
+    /** 最大缓存用户数 */
+    @Value("${api.cache.permission.max-users:10000}")
+    private int maxUsers;
+
+    /** 单个用户索引存活时间（秒，兜底失效广播丢失） */
+    @Value("${api.cache.permission.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private final ConcurrentHashMap<Long, PermissionSet> index = new ConcurrentHashMap<>();
+
+    /** 失效序号：加载期间发生过变更则放弃回填 */
+    private final AtomicLong changeSeq = new AtomicLong();
+
+    @PostConstruct
+    public void subscribe() {
+        if (listenerContainer != null) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(CacheKeyConstants.PERMISSION_INDEX_INVALIDATE_CHANNEL));
+        }
+    }
+
+    /**
+     * 校验用户是否拥有接口的有效权限（已授权且未过期）
+     */
+    public boolean hasPermission(Long userId, Long apiId) {
+        if (userId == null || apiId == null) {
+            return false;
+        }
+        PermissionSet set = index.get(userId);
+        long now = System.currentTimeMillis();
+        if (set == null || set.loadedExpireAt < now) {
+            set = load(userId, now);
+        }
+        return set.contains(apiId, now);
+    }
+
+    /**
+     * 开通权限后调用：提交后增量合并
+     */
+    public void onGranted(Long userId, Long[] apiIds, LocalDateTime expireTime) {
+        long[] ids = toSortedArray(apiIds);
+        long expireAt = expireTime == null ? NEVER_EXPIRE : toMillis(expireTime);
+        afterCommit(userId, () -> index.computeIfPresent(userId, (k, set) -> set.grant(ids, expireAt)));
+    }
+
+    /**
+     * 撤销权限后调用：提交后增量移除
+     */
+    public void onRevoked(Long userId, Long[] apiIds) {
+        long[] ids = toSortedArray(apiIds);
+        afterCommit(userId, () -> index.computeIfPresent(userId, (k, set) -> set.revoke(ids)));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int sep = body.indexOf(':');
+        if (sep < 0 || NODE_ID.equals(body.substring(0, sep))) {
+            return;
+        }
+        try {
+            changeSeq.incrementAndGet();
+            index.remove(Long.parseLong(body.substring(sep + 1)));
+        } catch (NumberFormatException e) {
+            log.warn("[PermissionIndex] 无法解析失效消息: {}", body);
+        }
+    }
+
+    private PermissionSet load(Long userId, long now) {
+        long stamp = changeSeq.get();
+        LambdaQueryWrapper<ApiPermission> wrapper = new LambdaQueryWrapper<>();
+        wrapper.select(ApiPermission::getApiId, ApiPermission::getExpireTime)
+                .eq(ApiPermission::getUserId, userId)
+                .eq(ApiPermission::getStatus, 1);
+        List<ApiPermission> permissions = apiPermissionMapper.selectList(wrapper);
+
+        PermissionSet set = PermissionSet.of(permissions, now + ttlSeconds * 1000);
+        if (stamp == changeSeq.get()) {
+            if (index.size() >= maxUsers) {
+                evictOne();
+            }
+            index.put(userId, set);
+        }
+        return set;
+    }
+
+    private void afterCommit(Long userId, Runnable localUpdate) {
+        Runnable task = () -> {
+            changeSeq.incrementAndGet();
+            localUpdate.run();
+            try {
+                redisTemplate.convertAndSend(CacheKeyConstants.PERMISSION_INDEX_INVALIDATE_CHANNEL, NODE_ID + ":" + userId);
+            } catch (Exception e) {
+                log.error("[PermissionIndex] 广播权限索引失效失败: userId={}", userId, e);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    task.run();
+                }
+            });
+        } else {
+            task.run();
+        }
+    }
+
+    private void evictOne() {
+        Iterator<Long> it = index.keySet().iterator();
+        if (it.hasNext()) {
+            index.remove(it.next());
+        }
+    }
+
+    private static long[] toSortedArray(Long[] apiIds) {
+        long[] ids = Arrays.stream(apiIds).filter(id -> id != null).mapToLong(Long::longValue).distinct().toArray();
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 单个用户的不可变权限集合（apiIds升序，expireAts与之一一对应）
+     */
+    private static final class PermissionSet {
+        private final long[] apiIds;
+        private final long[] expireAts;
+        /** 本索引整体存活截止时间 */
+        private final long loadedExpireAt;
+
+        private PermissionSet(long[] apiIds, long[] expireAts, long loadedExpireAt) {
+            this.apiIds = apiIds;
+            this.expireAts = expireAts;
+            this.loadedExpireAt = loadedExpireAt;
+        }
+
+        static PermissionSet of(List<ApiPermission> permissions, long loadedExpireAt) {
+            long[][] pairs = new long[permissions.size()][];
+            int n = 0;
+            for (ApiPermission p : permissions) {
+                if (p.getApiId() == null) {
+                    continue;
+                }
+                long expireAt = p.getExpireTime() == null ? NEVER_EXPIRE : toMillis(p.getExpireTime());
+                pairs[n++] = new long[]{p.getApiId(), expireAt};
+            }
+            Arrays.sort(pairs, 0, n, (a, b) -> Long.compare(a[0], b[0]));
+            long[] ids = new long[n];
+            long[] expires = new long[n];
+            int size = 0;
+            for (int i = 0; i < n; i++) {
+                if (size > 0 && ids[size - 1] == pairs[i][0]) {
+                    // 同一接口多条记录时取最晚过期时间
+                    expires[size - 1] = Math.max(expires[size - 1], pairs[i][1]);
+                    continue;
+                }
+                ids[size] = pairs[i][0];
+                expires[size] = pairs[i][1];
+                size++;
+            }
+            return new PermissionSet(Arrays.copyOf(ids, size), Arrays.copyOf(expires, size), loadedExpireAt);
+        }
+
+        boolean contains(long apiId, long now) {
+            int pos = Arrays.binarySearch(apiIds, apiId);
+            return pos >= 0 && expireAts[pos] > now;
+        }
+
+        /** 合并开通（已存在的接口覆盖过期时间，与数据库更新语义一致） */
+        PermissionSet grant(long[] ids, long expireAt) {
+            long[] mergedIds = new long[apiIds.length + ids.length];
+            long[] mergedExpires = new long[mergedIds.length];
+            int i = 0, j = 0, k = 0;
+            while (i < apiIds.length || j < ids.length) {
+                if (j >= ids.length || (i < apiIds.length && apiIds[i] < ids[j])) {
+                    mergedIds[k] = apiIds[i];
+                    mergedExpires[k++] = expireAts[i++];
+                } else {
+                    if (i < apiIds.length && apiIds[i] == ids[j]) {
+                        i++;
+                    }
+                    mergedIds[k] = ids[j++];
+                    mergedExpires[k++] = expireAt;
+                }
+            }
+            return new PermissionSet(Arrays.copyOf(mergedIds, k), Arrays.copyOf(mergedExpires, k), loadedExpireAt);
+        }
+
+        /** 移除撤销的接口 */
+        PermissionSet revoke(long[] ids) {
+            long[] keptIds = new long[apiIds.length];
+            long[] keptExpires = new long[apiIds.length];
+            int k = 0;
+            for (int i = 0; i < apiIds.length; i++) {
+                if (Arrays.binarySearch(ids, apiIds[i]) < 0) {
+                    keptIds[k] = apiIds[i];
+                    keptExpires[k++] = expireAts[i];
+                }
+            }
+            return new PermissionSet(Arrays.copyOf(keptIds, k), Arrays.copyOf(keptExpires, k), loadedExpireAt);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.org.api_admin_service.job;
+
+import com.org.api_admin_service.service.CallStatRollupService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 调用日志增量汇总任务（表结构见 rollup_api_call_stat.sql）
+ * 1. 每轮从水位开始按id分批汇总到小时表、日表，直到追上上一轮观察到的最大id
+ * 2. 汇总延迟至少一个检查间隔；汇总前还会等待更早开启的写事务结束，提交较晚的小id日志不会被跳过
+ * 3. 每批一个事务，中途失败只回滚当前批，下一轮从水位继续
+ * 4. 在独立线程上调度，不占用 @Scheduled 共享线程，避免长时间的汇总SQL拖慢实时统计刷新
+ */
+@Slf4j
+@Component
+public class CallStatRollupJob {
+
+    @Autowired
+    private CallStatRollupService callStatRollupService;
+
+    /** 是否启用汇总 */
+    @Value("${api.call-log.rollup.enabled:true}")
+    private boolean enabled;
+
+    /** 单批最多id数（单个事务的规模） */
+    @Value("${api.call-log.rollup.batch-size:50000}")
+    private long batchSize;
+
+    /** 单轮最多批数，避免补历史时长时间占用调度线程 */
+    @Value("${api.call-log.rollup.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    @Value("${api.call-log.rollup.initial-delay-ms:20000}")
+    private long initialDelayMs;
+
+    @Value("${api.call-log.rollup.interval-ms:60000}")
+    private long intervalMs;
+
+    private ScheduledExecutorService scheduler;
+
+    private volatile long lastRunAt;
+    private volatile long lastRunIds;
+    private volatile long lastRunMs;
+    private volatile long failCount;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "call-stat-rollup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::scheduledRollup, initialDelayMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    public void scheduledRollup() {
+        long start = System.currentTimeMillis();
+        long ids = 0;
+        try {
+            for (int i = 0; i < maxBatchesPerRun; i++) {
+                long advanced = callStatRollupService.rollupNext(batchSize);
+                if (advanced == 0) {
+                    break;
+                }
+                ids += advanced;
+            }
+        } catch (Exception e) {
+            failCount++;
+            log.error("[CallStatRollup] 汇总失败，下一轮从水位继续", e);
+        }
+        lastRunAt = start;
+        lastRunIds = ids;
+        lastRunMs = System.currentTimeMillis() - start;
+        if (ids > 0) {
+            log.info("[CallStatRollup] 本轮汇总id数={}, 耗时{}ms", ids, lastRunMs);
+        }
+    }
+
+    /**
+     * 汇总任务状态
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("batchSize", batchSize);
+        stats.put("lastRunAt", lastRunAt);
+        stats.put("lastRunIds", lastRunIds);
+        stats.put("lastRunMs", lastRunMs);
+        stats.put("failCount", failCount);
+        return stats;
+    }
+}
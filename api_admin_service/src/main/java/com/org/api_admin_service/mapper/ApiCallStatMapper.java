@@ -0,0 +1,84 @@
+package com.org.api_admin_service.mapper;
+
+import com.org.api_common.entity.ApiCallStat;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 调用日志汇总（表结构见 rollup_api_call_stat.sql）
+ */
+@Mapper
+public interface ApiCallStatMapper {
+
+    /**
+     * 初始化水位行（已存在时忽略）
+     */
+    @Insert("INSERT IGNORE INTO api_call_stat_watermark (name, last_id, pending_id) VALUES (#{name}, 0, 0)")
+    int initWatermark(@Param("name") String name);
+
+    /**
+     * 锁定并读取水位（FOR UPDATE，多节点同时汇总时串行执行）
+     * @return last_id、pending_id、pending_at
+     */
+    @Select("SELECT last_id, pending_id, pending_at FROM api_call_stat_watermark WHERE name = #{name} FOR UPDATE")
+    Map<String, Object> lockWatermark(@Param("name") String name);
+
+    @Update("UPDATE api_call_stat_watermark SET last_id = #{lastId}, pending_id = #{pendingId} WHERE name = #{name}")
+    int updateWatermark(@Param("name") String name, @Param("lastId") long lastId, @Param("pendingId") long pendingId);
+
+    /**
+     * 记录新的汇总终点及其观察时间（数据库时间，与 innodb_trx.trx_started 同一时钟）
+     */
+    @Update("UPDATE api_call_stat_watermark SET pending_id = #{pendingId}, pending_at = NOW() WHERE name = #{name}")
+    int markPending(@Param("name") String name, @Param("pendingId") long pendingId);
+
+    /**
+     * 汇总终点之前的写事务已全部结束，清除观察时间
+     */
+    @Update("UPDATE api_call_stat_watermark SET pending_at = NULL WHERE name = #{name}")
+    int clearPendingAt(@Param("name") String name);
+
+    /**
+     * 在指定时间之前开启、仍未结束的写事务数（不含只读事务和当前连接；需要 PROCESS 权限）
+     */
+    @Select("SELECT COUNT(*) FROM information_schema.innodb_trx " +
+            "WHERE trx_started <= #{before} AND trx_is_read_only = 0 AND trx_mysql_thread_id <> CONNECTION_ID()")
+    long countOpenWriteTrxBefore(@Param("before") Object before);
+
+    @Select("SELECT COALESCE(MAX(id), 0) FROM api_call_log")
+    long selectMaxLogId();
+
+    /**
+     * 把 (fromId, toId] 范围内的调用日志累加到小时汇总表
+     */
+    int rollupHourly(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    /**
+     * 把 (fromId, toId] 范围内的调用日志累加到日汇总表
+     */
+    int rollupDaily(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    /**
+     * 按接口合并 [startHour, endHour) 的小时汇总
+     * @param userId 为空时统计全部用户
+     */
+    List<ApiCallStat> sumHourlyByApi(@Param("startHour") LocalDateTime startHour,
+                                     @Param("endHour") LocalDateTime endHour,
+                                     @Param("userId") Long userId);
+
+    /**
+     * 按接口合并 [startDate, endDate) 的日汇总
+     * @param userId 为空时统计全部用户
+     */
+    List<ApiCallStat> sumDailyByApi(@Param("startDate") LocalDate startDate,
+                                    @Param("endDate") LocalDate endDate,
+                                    @Param("userId") Long userId);
+}
@@ -42,5 +42,13 @@ public interface ApiPermissionService extends IService<ApiPermission> {
      * @return 权限列表
      */
     java.util.List<ApiPermissionVO> getUserApiPermissions(Long userId);
+
+    /**
+     * 校验用户是否拥有接口的有效权限（走内存权限索引，用于网关鉴权）
+     * @param userId 用户ID
+     * @param apiId 接口ID
+     * @return 已授权且未过期返回true
+     */
+    boolean hasApiPermission(Long userId, Long apiId);
 }
 
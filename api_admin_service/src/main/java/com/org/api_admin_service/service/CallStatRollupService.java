@@ -0,0 +1,29 @@
+package com.org.api_admin_service.service;
+
+import com.org.api_common.entity.ApiCallStat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 调用日志汇总服务（api_call_stat_hourly / api_call_stat_daily）
+ */
+public interface CallStatRollupService {
+
+    /**
+     * 汇总下一批调用日志并推进水位（单个事务）
+     * 水位追上上次观察到的最大id时，只记录新的最大id及观察时间并返回0，留到下一轮再汇总；
+     * 汇总前确认观察时间之前开启的写事务都已结束，避免较小id晚于水位提交而被跳过
+     * @param batchSize 单批最多id数
+     * @return 本批推进的id数，0表示已追上
+     */
+    long rollupNext(long batchSize);
+
+    /**
+     * 按接口汇总时间范围内的调用（整天读日表，首尾不足一天的部分按小时读小时表）
+     * @param userId 为空时统计全部用户
+     * @param startTime 开始时间（向下取整到小时）
+     * @param endTime 结束时间（含，所在小时整体计入）
+     */
+    List<ApiCallStat> sumByApi(Long userId, LocalDateTime startTime, LocalDateTime endTime);
+}
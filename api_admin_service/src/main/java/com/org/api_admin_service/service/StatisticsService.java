@@ -1,7 +1,10 @@
 package com.org.api_admin_service.service;
 
+import com.org.api_common.vo.CallStatRangeVO;
 import com.org.api_common.vo.GlobalStatisticsVO;
+import com.org.api_common.vo.LatencyStatsVO;
 import com.org.api_common.vo.MyStatisticsVO;
+import com.org.api_common.vo.UniqueCallerStatsVO;
 
 import java.time.LocalDateTime;
 
@@ -26,5 +29,32 @@ public interface StatisticsService {
      * @return 全局统计信息
      */
     GlobalStatisticsVO getGlobalStatistics(LocalDateTime startTime, LocalDateTime endTime);
+
+    /**
+     * 任意时间范围的调用统计（读小时/日汇总表，不受Redis日统计保留期限制）
+     * @param userId 用户ID，为空时统计全部用户
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return 汇总统计，含各接口明细与响应时间分布
+     */
+    CallStatRangeVO getRangeStatistics(Long userId, LocalDateTime startTime, LocalDateTime endTime);
+
+    /**
+     * 响应时间分位数统计（合并分钟/日直方图，范围限于Redis日统计保留期内）
+     * @param apiPath 接口路径，为空时统计全部启用接口
+     * @param startTime 开始时间（可选，默认当天0点）
+     * @param endTime 结束时间（可选，默认当前时间）
+     * @return p50/p90/p99/max，总体及各接口
+     */
+    LatencyStatsVO getLatencyStatistics(String apiPath, LocalDateTime startTime, LocalDateTime endTime);
+
+    /**
+     * 去重调用方/IP统计（按天精度，PFCOUNT/PFMERGE 合并各接口各天的HyperLogLog，范围限于Redis日统计保留期内）
+     * @param apiPath 接口路径，为空时统计全部启用接口
+     * @param startTime 开始时间（可选，默认当天，取所在日期）
+     * @param endTime 结束时间（可选，默认当天，取所在日期）
+     * @return 总体及各接口的去重调用方数、去重IP数
+     */
+    UniqueCallerStatsVO getUniqueCallerStatistics(String apiPath, LocalDateTime startTime, LocalDateTime endTime);
 }
 
@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.org.api_admin_service.cache.ApiRouteTable;
 import com.org.api_admin_service.mapper.ApiInfoMapper;
 import com.org.api_admin_service.service.ApiInfoService;
 import com.org.api_common.constant.ErrorCodeEnum;
@@ -12,6 +13,7 @@ import com.org.api_common.exception.BusinessException;
 import com.org.api_common.dto.ApiInfoDTO;
 import com.org.api_common.vo.ApiInfoVO;
 import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
@@ -26,13 +28,15 @@ import java.util.stream.Collectors;
 public class ApiInfoServiceImpl extends ServiceImpl<ApiInfoMapper, ApiInfo>
         implements ApiInfoService {
 
+    @Autowired
+    private ApiRouteTable apiRouteTable;
+
+    /**
+     * 走内存路由表，不查库；返回对象为路由表共享快照，调用方不得修改
+     */
     @Override
     public ApiInfo getValidApiByPathAndMethod(String apiPath, String method) {
-        LambdaQueryWrapper<ApiInfo> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(ApiInfo::getApiPath, apiPath)
-                .eq(ApiInfo::getMethod, method.toUpperCase())
-                .eq(ApiInfo::getStatus, 1);
-        return this.getOne(wrapper);
+        return apiRouteTable.lookup(apiPath, method);
     }
 
     @Override
@@ -60,6 +64,7 @@ public class ApiInfoServiceImpl extends ServiceImpl<ApiInfoMapper, ApiInfo>
 
         // 3. 保存
         this.save(apiInfo);
+        apiRouteTable.refreshAfterCommit();
 
         // 4. 转换为VO返回
         return convertToVO(apiInfo);
@@ -96,6 +101,7 @@ public class ApiInfoServiceImpl extends ServiceImpl<ApiInfoMapper, ApiInfo>
                     "该接口已被其他管理员修改，请刷新后重试"
             );
         }
+        apiRouteTable.refreshAfterCommit();
 
         // 5. 返回更新后的信息
         return convertToVO(apiInfo);
@@ -126,6 +132,7 @@ public class ApiInfoServiceImpl extends ServiceImpl<ApiInfoMapper, ApiInfo>
                     "该接口已被其他管理员修改或删除，请刷新后重试"
             );
         }
+        apiRouteTable.refreshAfterCommit();
     }
 
     @Override
@@ -204,6 +211,7 @@ public class ApiInfoServiceImpl extends ServiceImpl<ApiInfoMapper, ApiInfo>
                     "该接口状态已被其他管理员修改，请刷新后重试"
             );
         }
+        apiRouteTable.refreshAfterCommit();
 
         return convertToVO(apiInfo);
     }
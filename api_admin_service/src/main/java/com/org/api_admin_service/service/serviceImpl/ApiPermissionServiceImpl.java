@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.org.api_admin_service.cache.UserPermissionIndex;
 import com.org.api_admin_service.mapper.ApiPermissionMapper;
 import com.org.api_admin_service.service.ApiPermissionService;
 import com.org.api_admin_service.service.ApiInfoService;
@@ -32,6 +33,9 @@ public class ApiPermissionServiceImpl extends ServiceImpl<ApiPermissionMapper, A
     @Autowired
     private ApiInfoService apiInfoService;
 
+    @Autowired
+    private UserPermissionIndex userPermissionIndex;
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public int grantApiPermission(Long userId, Long[] apiIds, LocalDateTime expireTime) {
@@ -78,6 +82,7 @@ public class ApiPermissionServiceImpl extends ServiceImpl<ApiPermissionMapper, A
             successCount++;
         }
 
+        userPermissionIndex.onGranted(userId, apiIds, expireTime);
         return successCount;
     }
 
@@ -104,6 +109,7 @@ public class ApiPermissionServiceImpl extends ServiceImpl<ApiPermissionMapper, A
             }
         }
 
+        userPermissionIndex.onRevoked(userId, apiIds);
         return successCount;
     }
 
@@ -217,5 +223,9 @@ public class ApiPermissionServiceImpl extends ServiceImpl<ApiPermissionMapper, A
 
         return voList;
     }
-}
 
+    @Override
+    public boolean hasApiPermission(Long userId, Long apiId) {
+        return userPermissionIndex.hasPermission(userId, apiId);
+    }
+}
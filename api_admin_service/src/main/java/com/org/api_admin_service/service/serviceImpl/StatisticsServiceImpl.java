@@ -1,24 +1,56 @@
 package com.org.api_admin_service.service.serviceImpl;
 
-import com.org.api_admin_service.service.ApiInfoService;
+import com.org.api_admin_service.cache.ApiRouteTable;
+import com.org.api_admin_service.service.CallStatRollupService;
 import com.org.api_admin_service.service.StatisticsService;
 import com.org.api_common.constant.CacheKeyConstants;
+import com.org.api_common.entity.ApiCallStat;
 import com.org.api_common.entity.ApiInfo;
+import com.org.api_common.util.LatencyHistogram;
+import com.org.api_common.vo.CallStatRangeVO;
 import com.org.api_common.vo.GlobalStatisticsVO;
+import com.org.api_common.vo.LatencyStatsVO;
 import com.org.api_common.vo.MyStatisticsVO;
+import com.org.api_common.vo.UniqueCallerStatsVO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 /**
  * 统计服务实现
+ * 1. 接口列表取自内存中的启用接口目录（ApiRouteTable），不再每次查库
+ * 2. 先构建全部 日期 × 接口 的key，再按块管道HMGET / MGET批量读取，多块并行，往返次数与范围长度基本无关
+ * 3. Redis日统计保留期之外的日期读汇总表
+ * 4. 响应时间分位数由各节点写入的分钟/日直方图合并得到：整天读日直方图，不足一天读分钟直方图
  */
 @Slf4j
 @Service
@@ -28,63 +60,115 @@ public class StatisticsServiceImpl implements StatisticsService {
     private StringRedisTemplate redisTemplate;
 
     @Autowired
-    private ApiInfoService apiInfoService;
+    private ApiRouteTable apiRouteTable;
+
+    @Autowired
+    private CallStatRollupService callStatRollupService;
 
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter MINUTE_FORMATTER = DateTimeFormatter.ofPattern("HHmm");
+
+    /** Redis日统计可读天数（RealTimeMetricsAggregator 中日统计保留30天），更早的日期读日汇总表 */
+    private static final int REDIS_READABLE_DAYS = 29;
+
+    /** 去重统计PFMERGE临时key兜底过期时间（秒），正常在查询结束时删除 */
+    private static final long UNIQUE_TMP_TTL_SECONDS = 60;
+
+    /** 单次管道HMGET / MGET 的key数量 */
+    @Value("${api.statistics.pipeline-chunk:500}")
+    private int pipelineChunk;
+
+    /** 分钟直方图保留天数（与 RealTimeMetricsAggregator 一致），更早的非整天范围按整天统计 */
+    @Value("${api.metrics.latency-minute-retention-days:3}")
+    private int latencyMinuteRetentionDays;
+
+    /** 并行读取Redis的线程数 */
+    @Value("${api.statistics.read-threads:4}")
+    private int readThreads;
+
+    private ExecutorService readExecutor;
+
+    @PostConstruct
+    public void startReadExecutor() {
+        AtomicInteger seq = new AtomicInteger();
+        int threads = Math.max(1, readThreads);
+        readExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread thread = new Thread(r, "statistics-reader-" + seq.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void stopReadExecutor() {
+        readExecutor.shutdownNow();
+    }
 
     @Override
     public MyStatisticsVO getUserStatistics(Long userId, LocalDateTime startTime, LocalDateTime endTime) {
         MyStatisticsVO statistics = new MyStatisticsVO();
         
         // 如果没有指定时间范围，默认查询最近30天
-        LocalDate startDate = startTime != null ? startTime.toLocalDate() : LocalDate.now().minusDays(29);
-        LocalDate endDate = endTime != null ? endTime.toLocalDate() : LocalDate.now();
-        
+        LocalDate today = LocalDate.now();
+        LocalDate startDate = startTime != null ? startTime.toLocalDate() : today.minusDays(29);
+        LocalDate endDate = endTime != null ? endTime.toLocalDate() : today;
+        // 各接口调用统计固定为最近7天
+        LocalDate apiStatsFrom = today.minusDays(6);
+
         long totalCalls = 0;
+        long successCalls = 0;
+        long failedCalls = 0;
+        long totalCostTime = 0;
         long todayCalls = 0;
-        LocalDate today = LocalDate.now();
-        
-        // 遍历日期范围，累加用户调用次数
-        LocalDate currentDate = startDate;
-        while (!currentDate.isAfter(endDate)) {
-            String dateStr = currentDate.format(DATE_FORMATTER);
-            
-            // 查询用户当天的调用次数
-            String userKey = CacheKeyConstants.API_METRICS_USER + ":" + userId + ":" + dateStr;
-            String userCountStr = redisTemplate.opsForValue().get(userKey);
-            long userCount = userCountStr != null ? Long.parseLong(userCountStr) : 0;
-            
-            totalCalls += userCount;
-            
-            // 如果是今天，记录今日调用次数
-            if (currentDate.equals(today)) {
-                todayCalls = userCount;
-            }
-            
-            currentDate = currentDate.plusDays(1);
+
+        // Redis日统计已过期的日期从日汇总表读取
+        LocalDate redisFrom = today.minusDays(REDIS_READABLE_DAYS);
+        if (startDate.isBefore(redisFrom)) {
+            LocalDate rollupEnd = endDate.isBefore(redisFrom) ? endDate : redisFrom.minusDays(1);
+            ApiCallStat history = sumRollup(userId, startDate, rollupEnd);
+            totalCalls += history.getCalls();
+            successCalls += history.getSuccess();
+            failedCalls += history.getFail();
+            totalCostTime += history.getCostSum();
+            startDate = redisFrom;
         }
-        
-        // 注意：由于Redis存储结构的限制，当前无法精确统计单个用户的成功/失败次数
-        // Redis中存储的是按接口路径统计的全局成功/失败次数，不是按用户统计的
-        // 这里使用估算方式：假设成功率为95%（可以根据实际情况调整）
-        // 如果需要精确统计，需要修改ApiMetricsAspect的存储结构，增加按用户+状态的统计
-        long successCalls = (long) (totalCalls * 0.95);
-        long failedCalls = totalCalls - successCalls;
-        
-        // 如果总调用次数为0，成功和失败次数也应该是0
-        if (totalCalls == 0) {
-            successCalls = 0;
-            failedCalls = 0;
+
+        // 统计范围与最近7天合并后一次批量读取用户日统计HASH
+        LocalDate readFrom = startDate.isBefore(apiStatsFrom) ? startDate : apiStatsFrom;
+        LocalDate readTo = endDate.isAfter(today) ? endDate : today;
+        List<LocalDate> days = daysBetween(readFrom, readTo);
+        List<Map<String, String>> dayHashes = readUserDays(userId, days);
+
+        Map<Long, long[]> apiTotals = new HashMap<>();
+        for (int i = 0; i < days.size(); i++) {
+            LocalDate day = days.get(i);
+            Map<String, String> hash = dayHashes.get(i);
+            long dayTotal = parseLong(hash.get(CacheKeyConstants.METRICS_FIELD_TOTAL));
+            if (!day.isBefore(startDate) && !day.isAfter(endDate)) {
+                long dayFail = parseLong(hash.get(CacheKeyConstants.METRICS_FIELD_FAIL));
+                // 升级前写入的HASH只有 total 字段，无失败记录时按成功计
+                long daySuccess = hash.containsKey(CacheKeyConstants.METRICS_FIELD_SUCCESS)
+                        ? parseLong(hash.get(CacheKeyConstants.METRICS_FIELD_SUCCESS)) : dayTotal - dayFail;
+                totalCalls += dayTotal;
+                successCalls += daySuccess;
+                failedCalls += dayFail;
+                totalCostTime += parseLong(hash.get(CacheKeyConstants.METRICS_FIELD_COST));
+            }
+            if (day.equals(today)) {
+                todayCalls = dayTotal;
+            }
+            if (!day.isBefore(apiStatsFrom) && !day.isAfter(today)) {
+                accumulateApiFields(hash, apiTotals);
+            }
         }
-        
+
         statistics.setTotalCalls(totalCalls);
         statistics.setSuccessCalls(successCalls);
         statistics.setFailedCalls(failedCalls);
         statistics.setTodayCalls(todayCalls);
-        
-        // 查询各接口的调用统计（最近7天）
-        List<MyStatisticsVO.ApiCallStat> apiCallStats = getApiCallStats(userId, LocalDate.now().minusDays(6), LocalDate.now());
-        statistics.setApiCallStats(apiCallStats);
+        statistics.setAvgResponseTime(totalCalls > 0 ? totalCostTime * 1.0 / totalCalls : 0.0);
+        statistics.setApiCallStats(toApiCallStats(apiTotals));
         
         return statistics;
     }
@@ -96,10 +180,9 @@ public class StatisticsServiceImpl implements StatisticsService {
         // 用户总数：此处不直接访问用户表，由上层（Controller）补充或后续扩展
         result.setTotalUsers(0L);
 
-        // 2. 统计接口总数（api_info 表）
-        java.util.List<ApiInfo> apiList = apiInfoService.list();
-        long totalApis = apiList.stream().filter(api -> api.getStatus() != null && api.getStatus() == 1).count();
-        result.setTotalApis(totalApis);
+        // 2. 统计接口总数（内存中的启用接口目录，不查库）
+        List<ApiInfo> apiList = apiRouteTable.enabledApis();
+        result.setTotalApis((long) apiList.size());
 
         // 3. 统计总调用次数和今日调用次数（基于 Redis 计数）
         LocalDate today = LocalDate.now();
@@ -110,41 +193,49 @@ public class StatisticsServiceImpl implements StatisticsService {
         long todayCalls = 0L;
         long totalCostTime = 0L;
 
-        LocalDate currentDate = startDate;
-        while (!currentDate.isAfter(endDate)) {
-            String dateStr = currentDate.format(DATE_FORMATTER);
+        // Redis日统计已过期的日期从日汇总表读取
+        LocalDate redisFrom = today.minusDays(REDIS_READABLE_DAYS);
+        if (startDate.isBefore(redisFrom)) {
+            LocalDate rollupEnd = endDate.isBefore(redisFrom) ? endDate : redisFrom.minusDays(1);
+            ApiCallStat history = sumRollup(null, startDate, rollupEnd);
+            totalCalls += history.getCalls();
+            totalCostTime += history.getCostSum();
+            startDate = redisFrom;
+        }
 
-            long dayTotalCalls = 0L;
-            long dayCostTime = 0L;
+        // 一次性批量读取 日期 × 接口路径 的日统计（同路径不同方法共用一个统计key，只读一次）
+        List<LocalDate> days = daysBetween(startDate, endDate);
+        List<String> apiPaths = distinctApiPaths(apiList);
 
-            // 累加所有接口当天的调用次数和耗时
-            for (ApiInfo apiInfo : apiList) {
-                if (apiInfo.getStatus() == null || apiInfo.getStatus() != 1) {
-                    continue;
-                }
-                String apiPath = apiInfo.getApiPath();
+        // 响应时间分位数：合并各接口的日直方图
+        LatencyHistogram latency = new LatencyHistogram();
+        if (!days.isEmpty()) {
+            readLatency(apiPaths, startDate.atStartOfDay(), endDate.atTime(23, 59, 59)).values().forEach(latency::merge);
+        }
+        result.setP50ResponseTime(latency.percentile(50));
+        result.setP90ResponseTime(latency.percentile(90));
+        result.setP99ResponseTime(latency.percentile(99));
+        result.setMaxResponseTime(latency.max());
 
-                String totalKey = CacheKeyConstants.API_METRICS_TOTAL + ":" + apiPath + ":" + dateStr;
-                String totalCountStr = redisTemplate.opsForValue().get(totalKey);
-                long totalCount = totalCountStr != null ? Long.parseLong(totalCountStr) : 0L;
-                dayTotalCalls += totalCount;
+        // 去重调用方/IP：跨接口、跨天合并HyperLogLog
+        long[][] unique = readUnique(apiPaths, days);
+        result.setUniqueCallers(unique[apiPaths.size()][0]);
+        result.setUniqueIps(unique[apiPaths.size()][1]);
 
-                // 累加响应时间
-                String timeKey = CacheKeyConstants.API_METRICS_TIME + ":" + apiPath + ":" + dateStr;
-                String timeStr = redisTemplate.opsForValue().get(timeKey);
-                long cost = timeStr != null ? Long.parseLong(timeStr) : 0L;
-                dayCostTime += cost;
+        long[][] dayStats = readApiDays(apiPaths, days);
+        for (int d = 0; d < days.size(); d++) {
+            long dayTotalCalls = 0L;
+            for (int a = 0; a < apiPaths.size(); a++) {
+                long[] dayStat = dayStats[d * apiPaths.size() + a];
+                dayTotalCalls += dayStat[0];
+                totalCostTime += dayStat[1];
             }
-
             totalCalls += dayTotalCalls;
-            totalCostTime += dayCostTime;
 
-            if (currentDate.equals(today)) {
+            if (days.get(d).equals(today)) {
                 // 今日调用次数：使用当天所有接口的调用总和
                 todayCalls = dayTotalCalls;
             }
-
-            currentDate = currentDate.plusDays(1);
         }
 
         result.setTotalCalls(totalCalls);
@@ -159,50 +250,558 @@ public class StatisticsServiceImpl implements StatisticsService {
 
         return result;
     }
+
+    @Override
+    public LatencyStatsVO getLatencyStatistics(String apiPath, LocalDateTime startTime, LocalDateTime endTime) {
+        LocalDateTime end = endTime != null ? endTime : LocalDateTime.now();
+        LocalDateTime start = startTime != null ? startTime : end.toLocalDate().atStartOfDay();
+        LocalDateTime earliest = LocalDate.now().minusDays(REDIS_READABLE_DAYS).atStartOfDay();
+        if (start.isBefore(earliest)) {
+            start = earliest;
+        }
+
+        List<ApiInfo> apiList = apiRouteTable.enabledApis();
+        Map<String, String> apiNames = apiNames(apiList);
+        List<String> apiPaths = apiPath != null && !apiPath.trim().isEmpty()
+                ? List.of(apiPath.trim()) : distinctApiPaths(apiList);
+
+        Map<String, LatencyHistogram> histograms = start.isAfter(end) ? Map.of() : readLatency(apiPaths, start, end);
+        LatencyHistogram total = new LatencyHistogram();
+        List<LatencyStatsVO.ApiLatency> apis = new ArrayList<>();
+        histograms.forEach((path, histogram) -> {
+            long count = histogram.count();
+            if (count == 0) {
+                return;
+            }
+            total.merge(histogram);
+            LatencyStatsVO.ApiLatency item = new LatencyStatsVO.ApiLatency();
+            item.setApiPath(path);
+            item.setApiName(apiNames.get(path));
+            item.setCount(count);
+            item.setP50(histogram.percentile(50));
+            item.setP90(histogram.percentile(90));
+            item.setP99(histogram.percentile(99));
+            item.setMax(histogram.max());
+            apis.add(item);
+        });
+        apis.sort((a, b) -> Long.compare(b.getCount(), a.getCount()));
+
+        LatencyStatsVO vo = new LatencyStatsVO();
+        vo.setStartTime(start);
+        vo.setEndTime(end);
+        vo.setCount(total.count());
+        vo.setP50(total.percentile(50));
+        vo.setP90(total.percentile(90));
+        vo.setP99(total.percentile(99));
+        vo.setMax(total.max());
+        vo.setApis(apis);
+        return vo;
+    }
+
+    @Override
+    public UniqueCallerStatsVO getUniqueCallerStatistics(String apiPath, LocalDateTime startTime, LocalDateTime endTime) {
+        LocalDate endDate = endTime != null ? endTime.toLocalDate() : LocalDate.now();
+        LocalDate startDate = startTime != null ? startTime.toLocalDate() : endDate;
+        LocalDate earliest = LocalDate.now().minusDays(REDIS_READABLE_DAYS);
+        if (startDate.isBefore(earliest)) {
+            startDate = earliest;
+        }
+
+        List<ApiInfo> apiList = apiRouteTable.enabledApis();
+        Map<String, String> apiNames = apiNames(apiList);
+        List<String> apiPaths = apiPath != null && !apiPath.trim().isEmpty()
+                ? List.of(apiPath.trim()) : distinctApiPaths(apiList);
+
+        long[][] unique = readUnique(apiPaths, daysBetween(startDate, endDate));
+        List<UniqueCallerStatsVO.ApiUnique> apis = new ArrayList<>();
+        for (int a = 0; a < apiPaths.size(); a++) {
+            if (unique[a][0] == 0 && unique[a][1] == 0) {
+                continue;
+            }
+            UniqueCallerStatsVO.ApiUnique item = new UniqueCallerStatsVO.ApiUnique();
+            item.setApiPath(apiPaths.get(a));
+            item.setApiName(apiNames.get(apiPaths.get(a)));
+            item.setUniqueCallers(unique[a][0]);
+            item.setUniqueIps(unique[a][1]);
+            apis.add(item);
+        }
+        apis.sort((x, y) -> Long.compare(y.getUniqueCallers(), x.getUniqueCallers()));
+
+        UniqueCallerStatsVO vo = new UniqueCallerStatsVO();
+        vo.setStartDate(startDate);
+        vo.setEndDate(endDate);
+        vo.setUniqueCallers(unique[apiPaths.size()][0]);
+        vo.setUniqueIps(unique[apiPaths.size()][1]);
+        vo.setApis(apis);
+        return vo;
+    }
     
+    @Override
+    public CallStatRangeVO getRangeStatistics(Long userId, LocalDateTime startTime, LocalDateTime endTime) {
+        LocalDateTime end = endTime != null ? endTime : LocalDateTime.now();
+        LocalDateTime start = startTime != null ? startTime : end.toLocalDate().minusDays(29).atStartOfDay();
+
+        List<ApiCallStat> rows = callStatRollupService.sumByApi(userId, start, end);
+
+        ApiCallStat total = new ApiCallStat();
+        List<CallStatRangeVO.ApiStat> apiStats = new ArrayList<>();
+        for (ApiCallStat row : rows) {
+            total.merge(row);
+            CallStatRangeVO.ApiStat stat = new CallStatRangeVO.ApiStat();
+            stat.setApiId(row.getApiId());
+            ApiInfo apiInfo = apiRouteTable.getEnabledById(row.getApiId());
+            stat.setApiName(apiInfo != null ? apiInfo.getApiName() : null);
+            stat.setCallCount(row.getCalls());
+            stat.setSuccessCount(row.getSuccess());
+            stat.setFailCount(row.getFail());
+            stat.setAvgResponseTime(row.getCalls() > 0 ? row.getCostSum() * 1.0 / row.getCalls() : 0.0);
+            stat.setMaxResponseTime(row.getCostMax());
+            apiStats.add(stat);
+        }
+        apiStats.sort((a, b) -> Long.compare(b.getCallCount(), a.getCallCount()));
+
+        CallStatRangeVO vo = new CallStatRangeVO();
+        vo.setStartTime(start.truncatedTo(ChronoUnit.HOURS));
+        vo.setEndTime(end.truncatedTo(ChronoUnit.HOURS).plusHours(1));
+        long calls = total.getCalls() != null ? total.getCalls() : 0L;
+        vo.setTotalCalls(calls);
+        vo.setSuccessCalls(calls > 0 ? total.getSuccess() : 0L);
+        vo.setFailedCalls(calls > 0 ? total.getFail() : 0L);
+        vo.setAvgResponseTime(calls > 0 ? total.getCostSum() * 1.0 / calls : 0.0);
+        vo.setMinResponseTime(calls > 0 ? total.getCostMin() : 0L);
+        vo.setMaxResponseTime(calls > 0 ? total.getCostMax() : 0L);
+        vo.setLatencyHistogram(toHistogram(total.latencyBuckets()));
+        vo.setApiStats(apiStats);
+        return vo;
+    }
+
     /**
-     * 获取各接口的调用统计
+     * 按天合并日汇总表 [startDate, endDate]
      */
-    private List<MyStatisticsVO.ApiCallStat> getApiCallStats(Long userId, LocalDate startDate, LocalDate endDate) {
-        List<MyStatisticsVO.ApiCallStat> stats = new ArrayList<>();
-        
-        // 获取所有已启用的接口
-        List<ApiInfo> apiList = apiInfoService.list();
-        
-        // 遍历每个接口，统计调用次数
-        for (ApiInfo apiInfo : apiList) {
-            if (apiInfo.getStatus() != 1) {
-                continue; // 跳过已禁用的接口
-            }
-            
-            long callCount = 0;
-            LocalDate currentDate = startDate;
-            
-            // 遍历日期范围，累加该接口的调用次数
-            while (!currentDate.isAfter(endDate)) {
-                String dateStr = currentDate.format(DATE_FORMATTER);
-                String totalKey = CacheKeyConstants.API_METRICS_TOTAL + ":" + apiInfo.getApiPath() + ":" + dateStr;
-                String countStr = redisTemplate.opsForValue().get(totalKey);
-                if (countStr != null) {
-                    callCount += Long.parseLong(countStr);
-                }
-                currentDate = currentDate.plusDays(1);
+    private ApiCallStat sumRollup(Long userId, LocalDate startDate, LocalDate endDate) {
+        ApiCallStat total = new ApiCallStat();
+        total.setCalls(0L);
+        total.setSuccess(0L);
+        total.setFail(0L);
+        total.setCostSum(0L);
+        for (ApiCallStat row : callStatRollupService.sumByApi(userId, startDate.atStartOfDay(), endDate.atTime(23, 59, 59))) {
+            total.merge(row);
+        }
+        return total;
+    }
+
+    private static Map<String, Long> toHistogram(long[] buckets) {
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        long[] bounds = ApiCallStat.LATENCY_BOUNDS;
+        for (int i = 0; i < bounds.length; i++) {
+            histogram.put("<=" + bounds[i] + "ms", buckets[i]);
+        }
+        histogram.put(">" + bounds[bounds.length - 1] + "ms", buckets[bounds.length]);
+        return histogram;
+    }
+
+    /**
+     * 批量读取用户各天的日统计HASH（管道HGETALL）；HASH不存在时兼容读取旧版计数key
+     * @return 与 days 一一对应，不存在为空Map
+     */
+    private List<Map<String, String>> readUserDays(Long userId, List<LocalDate> days) {
+        List<String> dayKeys = new ArrayList<>(days.size());
+        for (LocalDate day : days) {
+            dayKeys.add(CacheKeyConstants.API_METRICS_USER_DAY + ":" + userId + ":" + day.format(DATE_FORMATTER));
+        }
+        List<Map<String, String>> result = new ArrayList<>(days.size());
+        for (List<Object> chunk : fanOut(dayKeys, chunk -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String key : chunk) {
+                connection.hashCommands().hGetAll(key.getBytes(StandardCharsets.UTF_8));
             }
-            
-            // 只返回有调用记录的接口
-            if (callCount > 0) {
-                MyStatisticsVO.ApiCallStat stat = new MyStatisticsVO.ApiCallStat();
-                stat.setApiId(apiInfo.getId());
-                stat.setApiName(apiInfo.getApiName());
-                stat.setCallCount(callCount);
-                stats.add(stat);
+            return null;
+        }))) {
+            for (Object row : chunk) {
+                @SuppressWarnings("unchecked")
+                Map<String, String> hash = row instanceof Map ? (Map<String, String>) row : null;
+                result.add(hash != null ? hash : new HashMap<>());
             }
         }
-        
-        // 按调用次数降序排序
+
+        List<String> legacyKeys = new ArrayList<>();
+        for (int i = 0; i < days.size(); i++) {
+            if (!result.get(i).containsKey(CacheKeyConstants.METRICS_FIELD_TOTAL)) {
+                legacyKeys.add(CacheKeyConstants.API_METRICS_USER + ":" + userId + ":" + days.get(i).format(DATE_FORMATTER));
+            }
+        }
+        Map<String, String> legacyValues = multiGet(legacyKeys);
+        for (int i = 0; i < days.size() && !legacyValues.isEmpty(); i++) {
+            String legacy = legacyValues.get(CacheKeyConstants.API_METRICS_USER + ":" + userId + ":" + days.get(i).format(DATE_FORMATTER));
+            if (legacy != null) {
+                Map<String, String> hash = new HashMap<>(result.get(i));
+                hash.put(CacheKeyConstants.METRICS_FIELD_TOTAL, legacy);
+                result.set(i, hash);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 累加用户日统计HASH中的按接口字段
+     * @param apiTotals apiId -> [调用次数, 失败次数, 累计响应时间]
+     */
+    private static void accumulateApiFields(Map<String, String> hash, Map<Long, long[]> apiTotals) {
+        for (Map.Entry<String, String> entry : hash.entrySet()) {
+            String field = entry.getKey();
+            int slot;
+            String prefix;
+            if (field.startsWith(CacheKeyConstants.METRICS_FIELD_API_TOTAL_PREFIX)) {
+                slot = 0;
+                prefix = CacheKeyConstants.METRICS_FIELD_API_TOTAL_PREFIX;
+            } else if (field.startsWith(CacheKeyConstants.METRICS_FIELD_API_FAIL_PREFIX)) {
+                slot = 1;
+                prefix = CacheKeyConstants.METRICS_FIELD_API_FAIL_PREFIX;
+            } else if (field.startsWith(CacheKeyConstants.METRICS_FIELD_API_COST_PREFIX)) {
+                slot = 2;
+                prefix = CacheKeyConstants.METRICS_FIELD_API_COST_PREFIX;
+            } else {
+                continue;
+            }
+            try {
+                Long apiId = Long.parseLong(field.substring(prefix.length()));
+                apiTotals.computeIfAbsent(apiId, k -> new long[3])[slot] += parseLong(entry.getValue());
+            } catch (NumberFormatException e) {
+                log.warn("[Statistics] 忽略无法解析的用户日统计字段: {}", field);
+            }
+        }
+    }
+
+    /**
+     * 按接口汇总转换为VO（按调用次数降序）
+     */
+    private List<MyStatisticsVO.ApiCallStat> toApiCallStats(Map<Long, long[]> apiTotals) {
+        List<MyStatisticsVO.ApiCallStat> stats = new ArrayList<>(apiTotals.size());
+        apiTotals.forEach((apiId, totals) -> {
+            if (totals[0] <= 0) {
+                return;
+            }
+            MyStatisticsVO.ApiCallStat stat = new MyStatisticsVO.ApiCallStat();
+            stat.setApiId(apiId);
+            ApiInfo apiInfo = apiRouteTable.getEnabledById(apiId);
+            stat.setApiName(apiInfo != null ? apiInfo.getApiName() : null);
+            stat.setCallCount(totals[0]);
+            stat.setFailCount(totals[1]);
+            stat.setSuccessCount(totals[0] - totals[1]);
+            stat.setAvgResponseTime(totals[2] * 1.0 / totals[0]);
+            stats.add(stat);
+        });
         stats.sort((a, b) -> Long.compare(b.getCallCount(), a.getCallCount()));
-        
         return stats;
     }
-}
 
+    /**
+     * 批量读取 接口路径 × 日期 的日统计（日统计HASH；不存在时兼容读取旧版独立计数key，旧key过期后该分支自然失效）
+     * @return 按 [日期下标 * 路径数 + 路径下标] 排列的 [调用总次数, 累计响应时间]
+     */
+    private long[][] readApiDays(List<String> apiPaths, List<LocalDate> days) {
+        List<String> dayKeys = new ArrayList<>(apiPaths.size() * days.size());
+        for (LocalDate day : days) {
+            String dateStr = day.format(DATE_FORMATTER);
+            for (String apiPath : apiPaths) {
+                dayKeys.add(CacheKeyConstants.API_METRICS_API_DAY + ":" + apiPath + ":" + dateStr);
+            }
+        }
+        List<List<Object>> values = multiHashGet(dayKeys,
+                List.of(CacheKeyConstants.METRICS_FIELD_TOTAL, CacheKeyConstants.METRICS_FIELD_COST));
+
+        List<String> legacyKeys = new ArrayList<>();
+        for (int i = 0; i < dayKeys.size(); i++) {
+            if (values.get(i).get(0) == null) {
+                String suffix = legacySuffix(apiPaths, days, i);
+                legacyKeys.add(CacheKeyConstants.API_METRICS_TOTAL + suffix);
+                legacyKeys.add(CacheKeyConstants.API_METRICS_TIME + suffix);
+            }
+        }
+        Map<String, String> legacyValues = multiGet(legacyKeys);
+
+        long[][] result = new long[dayKeys.size()][];
+        for (int i = 0; i < dayKeys.size(); i++) {
+            List<Object> row = values.get(i);
+            if (row.get(0) != null) {
+                result[i] = new long[]{parseLong(row.get(0)), parseLong(row.get(1))};
+            } else {
+                String suffix = legacySuffix(apiPaths, days, i);
+                result[i] = new long[]{
+                        parseLong(legacyValues.get(CacheKeyConstants.API_METRICS_TOTAL + suffix)),
+                        parseLong(legacyValues.get(CacheKeyConstants.API_METRICS_TIME + suffix))
+                };
+            }
+        }
+        return result;
+    }
+
+    private static String legacySuffix(List<String> apiPaths, List<LocalDate> days, int index) {
+        return ":" + apiPaths.get(index % apiPaths.size()) + ":" + days.get(index / apiPaths.size()).format(DATE_FORMATTER);
+    }
+
+    /**
+     * 批量HMGET：按 pipeline-chunk 分批管道执行，多批并行（key按日期排列，即按日期区间并行）
+     * @return 与 keys 一一对应，每项与 fields 一一对应（不存在为null）
+     */
+    private List<List<Object>> multiHashGet(List<String> keys, List<String> fields) {
+        byte[][] rawFields = fields.stream().map(f -> f.getBytes(StandardCharsets.UTF_8)).toArray(byte[][]::new);
+        List<List<Object>> result = new ArrayList<>(keys.size());
+        for (List<Object> chunk : fanOut(keys, chunk -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String key : chunk) {
+                connection.hashCommands().hMGet(key.getBytes(StandardCharsets.UTF_8), rawFields);
+            }
+            return null;
+        }))) {
+            for (Object row : chunk) {
+                @SuppressWarnings("unchecked")
+                List<Object> values = row instanceof List ? (List<Object>) row : null;
+                result.add(values != null ? values : Arrays.asList(new Object[fields.size()]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 批量GET旧版计数key：按 pipeline-chunk 分批MGET，多批并行
+     * @return key -> value（不存在的key不在结果中）
+     */
+    private Map<String, String> multiGet(List<String> keys) {
+        Map<String, String> result = new HashMap<>(keys.size() * 2);
+        if (keys.isEmpty()) {
+            return result;
+        }
+        List<List<String>> chunks = fanOut(keys, chunk -> redisTemplate.opsForValue().multiGet(chunk));
+        int index = 0;
+        for (List<String> chunk : chunks) {
+            for (int i = 0; chunk != null && i < chunk.size(); i++) {
+                if (chunk.get(i) != null) {
+                    result.put(keys.get(index + i), chunk.get(i));
+                }
+            }
+            index += Math.max(1, pipelineChunk);
+        }
+        return result;
+    }
+
+    /**
+     * 按 pipeline-chunk 切分key并在读取线程池中并行执行，结果按切分顺序返回；只有一批时在当前线程执行
+     */
+    private <T> List<T> fanOut(List<String> keys, Function<List<String>, T> reader) {
+        int chunkSize = Math.max(1, pipelineChunk);
+        List<List<String>> chunks = new ArrayList<>();
+        for (int from = 0; from < keys.size(); from += chunkSize) {
+            chunks.add(keys.subList(from, Math.min(keys.size(), from + chunkSize)));
+        }
+        if (chunks.size() <= 1) {
+            List<T> single = new ArrayList<>(1);
+            if (!chunks.isEmpty()) {
+                single.add(reader.apply(chunks.get(0)));
+            }
+            return single;
+        }
+        List<CompletableFuture<T>> futures = new ArrayList<>(chunks.size());
+        for (List<String> chunk : chunks) {
+            futures.add(CompletableFuture.supplyAsync(() -> reader.apply(chunk), readExecutor));
+        }
+        List<T> results = new ArrayList<>(chunks.size());
+        for (CompletableFuture<T> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    /**
+     * 批量读取并合并各接口在 [start, end] 内的响应时间直方图（分钟精度）
+     * 整天（或早于分钟直方图保留期）读日直方图HASH，首尾不足一天读分钟直方图HASH并按分钟过滤，HASH内各节点字段合并
+     * @return apiPath -> 合并后的直方图（固定桶数，与范围长度无关）
+     */
+    private Map<String, LatencyHistogram> readLatency(List<String> apiPaths, LocalDateTime start, LocalDateTime end) {
+        LocalDate minuteFrom = LocalDate.now().minusDays(Math.max(1, latencyMinuteRetentionDays) - 1);
+        String startMinute = start.format(MINUTE_FORMATTER);
+        String endMinute = end.format(MINUTE_FORMATTER);
+
+        List<String> keys = new ArrayList<>();
+        List<String> keyApiPaths = new ArrayList<>();
+        List<String[]> minuteRanges = new ArrayList<>();
+        for (LocalDate day : daysBetween(start.toLocalDate(), end.toLocalDate())) {
+            String dateStr = day.format(DATE_FORMATTER);
+            String fromMinute = day.equals(start.toLocalDate()) ? startMinute : "0000";
+            String toMinute = day.equals(end.toLocalDate()) ? endMinute : "2359";
+            boolean wholeDay = ("0000".equals(fromMinute) && "2359".equals(toMinute)) || day.isBefore(minuteFrom);
+            for (String apiPath : apiPaths) {
+                keyApiPaths.add(apiPath);
+                if (wholeDay) {
+                    keys.add(CacheKeyConstants.API_METRICS_LATENCY_DAY + ":" + apiPath + ":" + dateStr);
+                    minuteRanges.add(null);
+                } else {
+                    keys.add(CacheKeyConstants.API_METRICS_LATENCY_MINUTE + ":" + apiPath + ":" + dateStr);
+                    minuteRanges.add(new String[]{fromMinute, toMinute});
+                }
+            }
+        }
+
+        Map<String, LatencyHistogram> result = new LinkedHashMap<>();
+        for (String apiPath : apiPaths) {
+            result.put(apiPath, new LatencyHistogram());
+        }
+        int index = 0;
+        for (List<Object> chunk : fanOut(keys, chunk -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String key : chunk) {
+                connection.hashCommands().hGetAll(key.getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        }, RedisSerializer.byteArray()))) {
+            for (Object row : chunk) {
+                String[] range = minuteRanges.get(index);
+                LatencyHistogram histogram = result.get(keyApiPaths.get(index));
+                index++;
+                if (!(row instanceof Map<?, ?> hash)) {
+                    continue;
+                }
+                for (Map.Entry<?, ?> entry : hash.entrySet()) {
+                    if (range != null) {
+                        // 分钟直方图字段：{HHmm}|{节点ID}
+                        String field = new String((byte[]) entry.getKey(), StandardCharsets.UTF_8);
+                        String minute = field.length() >= 4 ? field.substring(0, 4) : "";
+                        if (minute.compareTo(range[0]) < 0 || minute.compareTo(range[1]) > 0) {
+                            continue;
+                        }
+                    }
+                    if (!histogram.merge((byte[]) entry.getValue())) {
+                        log.warn("[Statistics] 忽略无法解析的响应时间直方图: key={}", keys.get(index - 1));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 批量统计各接口在给定日期内的去重调用方数、去重IP数
+     * 1. 各接口：一次多key PFCOUNT（服务端合并多天的HLL，不产生临时key）
+     * 2. 跨接口总数：每批接口的各天HLL先 PFMERGE 到本批临时key，再对所有临时key做一次多key PFCOUNT，
+     *    每个源key只读一次，合并结果大小固定（单个HLL约12KB），与接口数、天数无关
+     * @return 前 apiPaths.size() 项为各接口 {调用方数, IP数}，最后一项为跨接口总数
+     */
+    private long[][] readUnique(List<String> apiPaths, List<LocalDate> days) {
+        long[][] result = new long[apiPaths.size() + 1][2];
+        if (apiPaths.isEmpty() || days.isEmpty()) {
+            return result;
+        }
+        boolean merge = apiPaths.size() > 1;
+        String tmpPrefix = CacheKeyConstants.API_METRICS_UNIQUE_TMP + UUID.randomUUID() + ":";
+        AtomicInteger chunkSeq = new AtomicInteger();
+        List<String> akTmpKeys = new ArrayList<>();
+        List<String> ipTmpKeys = new ArrayList<>();
+
+        int index = 0;
+        for (UniqueChunk chunk : fanOut(apiPaths, paths -> {
+            int seq = chunkSeq.getAndIncrement();
+            String akTmp = tmpPrefix + "ak:" + seq;
+            String ipTmp = tmpPrefix + "ip:" + seq;
+            List<Object> rows = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                List<String> allAk = new ArrayList<>(paths.size() * days.size());
+                List<String> allIp = new ArrayList<>(paths.size() * days.size());
+                for (String apiPath : paths) {
+                    String[] akKeys = uniqueKeys(CacheKeyConstants.API_METRICS_UNIQUE_AK, apiPath, days);
+                    String[] ipKeys = uniqueKeys(CacheKeyConstants.API_METRICS_UNIQUE_IP, apiPath, days);
+                    conn.pfCount(akKeys);
+                    conn.pfCount(ipKeys);
+                    allAk.addAll(Arrays.asList(akKeys));
+                    allIp.addAll(Arrays.asList(ipKeys));
+                }
+                if (merge) {
+                    conn.pfMerge(akTmp, allAk.toArray(new String[0]));
+                    conn.pfMerge(ipTmp, allIp.toArray(new String[0]));
+                    conn.expire(akTmp, UNIQUE_TMP_TTL_SECONDS);
+                    conn.expire(ipTmp, UNIQUE_TMP_TTL_SECONDS);
+                }
+                return null;
+            });
+            return new UniqueChunk(longResults(rows), akTmp, ipTmp);
+        })) {
+            for (int i = 0; i + 1 < chunk.counts.size() && index < apiPaths.size(); i += 2, index++) {
+                result[index][0] = chunk.counts.get(i);
+                result[index][1] = chunk.counts.get(i + 1);
+            }
+            akTmpKeys.add(chunk.akTmp);
+            ipTmpKeys.add(chunk.ipTmp);
+        }
+
+        if (!merge) {
+            result[1] = result[0].clone();
+            return result;
+        }
+        List<String> tmpKeys = new ArrayList<>(akTmpKeys);
+        tmpKeys.addAll(ipTmpKeys);
+        List<Long> totals = longResults(redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            conn.pfCount(akTmpKeys.toArray(new String[0]));
+            conn.pfCount(ipTmpKeys.toArray(new String[0]));
+            conn.del(tmpKeys.toArray(new String[0]));
+            return null;
+        }));
+        if (totals.size() >= 2) {
+            result[apiPaths.size()][0] = totals.get(0);
+            result[apiPaths.size()][1] = totals.get(1);
+        }
+        return result;
+    }
+
+    private static String[] uniqueKeys(String prefix, String apiPath, List<LocalDate> days) {
+        String[] keys = new String[days.size()];
+        for (int d = 0; d < days.size(); d++) {
+            keys[d] = prefix + ":" + apiPath + ":" + days.get(d).format(DATE_FORMATTER);
+        }
+        return keys;
+    }
+
+    /**
+     * 取管道结果中的整数回复（PFMERGE 的状态回复、EXPIRE 的布尔回复不计入）
+     */
+    private static List<Long> longResults(List<Object> rows) {
+        List<Long> values = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            if (row instanceof Long value) {
+                values.add(value);
+            }
+        }
+        return values;
+    }
+
+    private record UniqueChunk(List<Long> counts, String akTmp, String ipTmp) {
+    }
+
+    private static List<LocalDate> daysBetween(LocalDate startDate, LocalDate endDate) {
+        List<LocalDate> days = new ArrayList<>();
+        for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+            days.add(day);
+        }
+        return days;
+    }
+
+    private static Map<String, String> apiNames(List<ApiInfo> apiList) {
+        Map<String, String> apiNames = new HashMap<>(apiList.size() * 2);
+        for (ApiInfo apiInfo : apiList) {
+            if (apiInfo.getApiPath() != null) {
+                apiNames.putIfAbsent(apiInfo.getApiPath(), apiInfo.getApiName());
+            }
+        }
+        return apiNames;
+    }
+
+    private static List<String> distinctApiPaths(List<ApiInfo> apiList) {
+        Set<String> paths = new LinkedHashSet<>();
+        for (ApiInfo apiInfo : apiList) {
+            if (apiInfo.getApiPath() != null) {
+                paths.add(apiInfo.getApiPath());
+            }
+        }
+        return new ArrayList<>(paths);
+    }
+
+    private static long parseLong(Object value) {
+        return value != null ? Long.parseLong(value.toString()) : 0L;
+    }
+}
@@ -1,11 +1,21 @@
 package com.org.api_common.config;
 
+import com.org.api_common.constant.SignConstants;
+import com.org.api_common.nonce.InMemoryNonceStore;
+import com.org.api_common.nonce.LocalNonceFilter;
+import com.org.api_common.nonce.NonceStore;
+import com.org.api_common.nonce.NonceVerifier;
+import com.org.api_common.nonce.RedisNonceStore;
 import com.org.api_common.util.NonceUtil;
 import com.org.api_common.util.RedisUtil;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 
 /**
  * 公共模块自动配置
@@ -25,12 +35,41 @@ public class CommonAutoConfiguration {
     }
 
     /**
-     * 初始化Nonce工具类
+     * Nonce存储：redis（默认，集群共享）/ memory（单节点、测试环境）
+     * 无Redis时自动退化为内存存储
      */
     @Bean
-    @ConditionalOnBean(StringRedisTemplate.class)
-    public NonceUtil nonceUtil(StringRedisTemplate stringRedisTemplate) {
-        NonceUtil.setRedisTemplate(stringRedisTemplate);
+    public NonceStore nonceStore(@Value("${api.nonce.store:redis}") String storeType,
+                                 ObjectProvider<StringRedisTemplate> redisTemplateProvider) {
+        StringRedisTemplate redisTemplate = redisTemplateProvider.getIfAvailable();
+        if ("memory".equalsIgnoreCase(storeType) || redisTemplate == null) {
+            return new InMemoryNonceStore();
+        }
+        return new RedisNonceStore(redisTemplate);
+    }
+
+    /**
+     * 初始化Nonce工具类（Redis存储时启用本节点预过滤，内存存储本身即本地判重无需重复）
+     */
+    @Bean
+    public NonceUtil nonceUtil(NonceStore nonceStore,
+                               @Value("${api.nonce.local-filter.enabled:true}") boolean localFilterEnabled,
+                               @Value("${api.nonce.local-filter.max-entries:200000}") int localFilterMaxEntries) {
+        LocalNonceFilter localFilter = localFilterEnabled && !(nonceStore instanceof InMemoryNonceStore)
+                ? new LocalNonceFilter(SignConstants.NONCE_EXPIRE_SECOND, localFilterMaxEntries)
+                : null;
+        NonceUtil.setNonceVerifier(new NonceVerifier(nonceStore, localFilter, SignConstants.NONCE_EXPIRE_SECOND));
         return new NonceUtil();
     }
-}
\ No newline at end of file
+
+    /**
+     * Redis发布订阅监听容器（各模块本地缓存的集群失效通知共用）
+     */
+    @Bean
+    @ConditionalOnBean(RedisConnectionFactory.class)
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+}
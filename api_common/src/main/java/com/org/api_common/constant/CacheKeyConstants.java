@@ -9,6 +9,12 @@ public class CacheKeyConstants {
     /** API调用日志队列 */
     public static final String API_METRICS_QUEUE = "api:metrics:queue";
 
+    /** API调用日志Stream（api.call-log.transport=stream 时替代 API_METRICS_QUEUE） */
+    public static final String API_METRICS_STREAM = "api:metrics:stream";
+
+    /** API调用日志死信队列（解析失败或数据错误无法入库的日志） */
+    public static final String API_METRICS_DEAD_QUEUE = "api:metrics:queue:dead";
+
     /** API调用总次数统计 */
     public static final String API_METRICS_TOTAL = "api:metrics:total";
 
@@ -24,6 +30,48 @@ public class CacheKeyConstants {
     /** API调用累计响应时间统计 */
     public static final String API_METRICS_TIME = "api:metrics:time";
 
+    /** 接口日统计HASH：api:metrics:api-day:{apiPath}:{yyyy-MM-dd}，字段 total/success/fail/cost */
+    public static final String API_METRICS_API_DAY = "api:metrics:api-day";
+
+    /**
+     * 用户日统计HASH：api:metrics:user-day:{userId}:{yyyy-MM-dd}
+     * 字段 total/success/fail/cost，以及按接口的 t:{apiId}（调用次数）、f:{apiId}（失败次数）、c:{apiId}（累计响应时间）
+     */
+    public static final String API_METRICS_USER_DAY = "api:metrics:user-day";
+
+    /**
+     * 接口分钟响应时间直方图HASH：api:metrics:latency-min:{apiPath}:{yyyy-MM-dd}
+     * 字段 {HHmm}|{节点ID}，值为该节点该分钟的 LatencyHistogram 序列化数据（覆盖写，读取时合并）
+     */
+    public static final String API_METRICS_LATENCY_MINUTE = "api:metrics:latency-min";
+
+    /** 接口日响应时间直方图HASH：api:metrics:latency-day:{apiPath}:{yyyy-MM-dd}，字段 {节点ID} */
+    public static final String API_METRICS_LATENCY_DAY = "api:metrics:latency-day";
+
+    /** 接口日去重调用方HyperLogLog：api:metrics:uv-ak:{apiPath}:{yyyy-MM-dd}，成员为accessKey（每key最多约12KB） */
+    public static final String API_METRICS_UNIQUE_AK = "api:metrics:uv-ak";
+
+    /** 接口日去重IP HyperLogLog：api:metrics:uv-ip:{apiPath}:{yyyy-MM-dd}，成员为客户端IP */
+    public static final String API_METRICS_UNIQUE_IP = "api:metrics:uv-ip";
+
+    /** 去重统计查询时PFMERGE的临时key前缀（查询结束即删除，兜底过期） */
+    public static final String API_METRICS_UNIQUE_TMP = "api:metrics:uv-tmp:";
+
+    /** 日统计HASH字段：调用总次数 */
+    public static final String METRICS_FIELD_TOTAL = "total";
+    /** 日统计HASH字段：成功次数 */
+    public static final String METRICS_FIELD_SUCCESS = "success";
+    /** 日统计HASH字段：失败次数 */
+    public static final String METRICS_FIELD_FAIL = "fail";
+    /** 日统计HASH字段：累计响应时间（毫秒） */
+    public static final String METRICS_FIELD_COST = "cost";
+    /** 用户日统计HASH按接口字段前缀：调用次数 t:{apiId} */
+    public static final String METRICS_FIELD_API_TOTAL_PREFIX = "t:";
+    /** 用户日统计HASH按接口字段前缀：失败次数 f:{apiId} */
+    public static final String METRICS_FIELD_API_FAIL_PREFIX = "f:";
+    /** 用户日统计HASH按接口字段前缀：累计响应时间 c:{apiId} */
+    public static final String METRICS_FIELD_API_COST_PREFIX = "c:";
+
 
     /** 用户SK缓存前缀：api:sk:{ak} */
     public static final String USER_SK_PREFIX = "api:sk:";
@@ -33,4 +81,18 @@ public class CacheKeyConstants {
     public static final String API_PERMISSION_PREFIX = "api:permission:";
     /** IP限流缓存前缀：api:limit:ip:{ip} */
     public static final String IP_LIMIT_PREFIX = "api:limit:ip:";
+    /** AK分级限流缓存前缀：api:limit:ak:{ak} */
+    public static final String AK_LIMIT_PREFIX = "api:limit:ak:";
+    /** 全局限流缓存key */
+    public static final String GLOBAL_LIMIT_KEY = "api:limit:global";
+
+    /** 调用日志分区维护锁（多节点只有一个执行DDL） */
+    public static final String CALL_LOG_PARTITION_LOCK = "api:lock:call-log:partition";
+
+    /** AK凭证本地缓存失效广播频道（消息体为AK） */
+    public static final String AK_CACHE_INVALIDATE_CHANNEL = "api:channel:ak:invalidate";
+    /** 接口路由表刷新广播频道 */
+    public static final String API_ROUTE_REFRESH_CHANNEL = "api:channel:route:refresh";
+    /** 用户权限索引失效广播频道（消息体为 节点ID:userId） */
+    public static final String PERMISSION_INDEX_INVALIDATE_CHANNEL = "api:channel:permission:invalidate";
 }
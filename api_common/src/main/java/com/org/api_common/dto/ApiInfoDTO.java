@@ -19,4 +19,13 @@ public class ApiInfoDTO {
 
     @NotNull(message = "状态不能为空")
     private Integer status;
+
+    /** 限流算法：TOKEN_BUCKET/SLIDING_WINDOW（可选） */
+    private String rateLimitAlgorithm;
+
+    /** 限流窗口内允许的请求数（可选，<=0表示使用全局默认） */
+    private Integer rateLimitCount;
+
+    /** 限流窗口（秒，可选） */
+    private Integer rateLimitWindow;
 }
\ No newline at end of file
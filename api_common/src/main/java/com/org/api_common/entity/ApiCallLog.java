@@ -37,11 +37,10 @@ public class ApiCallLog {
     private Long costTime;
     /** 调用时间 */
     private LocalDateTime callTime;
-
-    /** 以下为非持久化字段，用于返回给前端展示 */
-    @com.baomidou.mybatisplus.annotation.TableField(exist = false)
+    /** 接口路径（写入时冗余，列表按它过滤，无需再关联 api_info） */
     private String apiPath;
-
-    @com.baomidou.mybatisplus.annotation.TableField(exist = false)
+    /** 请求方法（写入时冗余） */
     private String method;
+    /** 接口名称（写入时冗余） */
+    private String apiName;
 }
\ No newline at end of file
@@ -0,0 +1,76 @@
+package com.org.api_common.entity;
+
+import lombok.Data;
+
+/**
+ * 接口调用汇总（api_call_stat_hourly / api_call_stat_daily 按维度合并后的结果行）
+ */
+@Data
+public class ApiCallStat {
+    /** 延迟直方图分桶上界（毫秒），最后一桶为大于最后一个上界 */
+    public static final long[] LATENCY_BOUNDS = {10, 50, 100, 300, 1000, 3000};
+
+    /** 接口ID */
+    private Long apiId;
+    /** 用户ID */
+    private Long userId;
+    /** 调用次数 */
+    private Long calls;
+    /** 成功次数 */
+    private Long success;
+    /** 失败次数 */
+    private Long fail;
+    /** 累计耗时（毫秒） */
+    private Long costSum;
+    /** 最小耗时（毫秒） */
+    private Long costMin;
+    /** 最大耗时（毫秒） */
+    private Long costMax;
+    /** 耗时<=10ms次数 */
+    private Long latLe10;
+    /** 耗时<=50ms次数 */
+    private Long latLe50;
+    /** 耗时<=100ms次数 */
+    private Long latLe100;
+    /** 耗时<=300ms次数 */
+    private Long latLe300;
+    /** 耗时<=1s次数 */
+    private Long latLe1000;
+    /** 耗时<=3s次数 */
+    private Long latLe3000;
+    /** 耗时>3s次数 */
+    private Long latGt3000;
+
+    /**
+     * 直方图各桶计数，顺序与 LATENCY_BOUNDS 一致，末尾为溢出桶
+     */
+    public long[] latencyBuckets() {
+        return new long[]{n(latLe10), n(latLe50), n(latLe100), n(latLe300), n(latLe1000), n(latLe3000), n(latGt3000)};
+    }
+
+    /**
+     * 合并另一行（同维度不同时间段）
+     */
+    public void merge(ApiCallStat other) {
+        if (n(other.calls) == 0) {
+            return;
+        }
+        costMin = n(calls) == 0 ? other.costMin : Math.min(n(costMin), n(other.costMin));
+        costMax = Math.max(n(costMax), n(other.costMax));
+        calls = n(calls) + n(other.calls);
+        success = n(success) + n(other.success);
+        fail = n(fail) + n(other.fail);
+        costSum = n(costSum) + n(other.costSum);
+        latLe10 = n(latLe10) + n(other.latLe10);
+        latLe50 = n(latLe50) + n(other.latLe50);
+        latLe100 = n(latLe100) + n(other.latLe100);
+        latLe300 = n(latLe300) + n(other.latLe300);
+        latLe1000 = n(latLe1000) + n(other.latLe1000);
+        latLe3000 = n(latLe3000) + n(other.latLe3000);
+        latGt3000 = n(latGt3000) + n(other.latGt3000);
+    }
+
+    private static long n(Long value) {
+        return value != null ? value : 0L;
+    }
+}
@@ -33,6 +33,13 @@ public class ApiInfo {
     /** 更新时间 */
     private LocalDateTime updateTime;
 
+    /** 限流算法：TOKEN_BUCKET/SLIDING_WINDOW（为空使用全局默认算法） */
+    private String rateLimitAlgorithm;
+    /** 每个调用方在限流窗口内允许的请求数（为空或<=0表示使用全局默认限流） */
+    private Integer rateLimitCount;
+    /** 限流窗口（秒） */
+    private Integer rateLimitWindow;
+
     /** 乐观锁版本号 */
     @Version
     private Integer version;
@@ -0,0 +1,37 @@
+package com.org.api_common.nonce;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 纯内存Nonce存储（单节点部署/测试环境）
+ * 过期条目在写入时惰性覆盖，并每隔一定写入次数整体清理一次
+ */
+public class InMemoryNonceStore implements NonceStore {
+
+    /** 每写入多少次触发一次过期清理 */
+    private static final int CLEANUP_INTERVAL = 10_000;
+
+    /** nonce键 -> 过期时间戳（毫秒） */
+    private final ConcurrentHashMap<String, Long> nonces = new ConcurrentHashMap<>();
+
+    private final AtomicInteger writeCount = new AtomicInteger();
+
+    @Override
+    public boolean putIfAbsent(String key, long ttlSeconds) {
+        long now = System.currentTimeMillis();
+        long expireAt = now + ttlSeconds * 1000;
+        boolean[] inserted = {false};
+        nonces.compute(key, (k, existing) -> {
+            if (existing == null || existing <= now) {
+                inserted[0] = true;
+                return expireAt;
+            }
+            return existing;
+        });
+        if (writeCount.incrementAndGet() % CLEANUP_INTERVAL == 0) {
+            nonces.values().removeIf(time -> time <= now);
+        }
+        return inserted[0];
+    }
+}
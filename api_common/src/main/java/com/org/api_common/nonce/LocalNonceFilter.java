@@ -0,0 +1,79 @@
+package com.org.api_common.nonce;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 本节点Nonce预过滤器（按时间分桶轮转）
+ * 1. 每个桶覆盖一个Nonce有效期长度，保留当前桶和上一个桶，覆盖完整有效期
+ * 2. 本节点已放行的nonce命中即为确定的重放，直接拒绝，无需访问Redis
+ * 3. 未命中仍需交给 NonceStore 做集群级判重；桶满后不再记录（退化为直接查Redis）
+ */
+public class LocalNonceFilter {
+
+    private final long bucketSeconds;
+
+    private final int maxEntriesPerBucket;
+
+    /** 下标 = 桶序号 % 2 */
+    private final AtomicReferenceArray<Bucket> buckets = new AtomicReferenceArray<>(2);
+
+    public LocalNonceFilter(long bucketSeconds, int maxEntriesPerBucket) {
+        this.bucketSeconds = bucketSeconds;
+        this.maxEntriesPerBucket = maxEntriesPerBucket;
+    }
+
+    /**
+     * 是否为本节点有效期内已放行过的nonce
+     */
+    public boolean seen(String key) {
+        long current = currentBucket();
+        return contains(current, key) || contains(current - 1, key);
+    }
+
+    /**
+     * 记录已放行的nonce
+     */
+    public void record(String key) {
+        Bucket bucket = bucketFor(currentBucket());
+        if (bucket.size.get() < maxEntriesPerBucket && bucket.keys.add(key)) {
+            bucket.size.incrementAndGet();
+        }
+    }
+
+    private boolean contains(long index, String key) {
+        Bucket bucket = buckets.get((int) (index & 1));
+        return bucket != null && bucket.index == index && bucket.keys.contains(key);
+    }
+
+    private Bucket bucketFor(long index) {
+        int slot = (int) (index & 1);
+        while (true) {
+            Bucket bucket = buckets.get(slot);
+            if (bucket != null && bucket.index == index) {
+                return bucket;
+            }
+            // 槽位里是两个周期前的旧桶，整体替换即完成过期
+            Bucket fresh = new Bucket(index);
+            if (buckets.compareAndSet(slot, bucket, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private long currentBucket() {
+        return System.currentTimeMillis() / 1000 / bucketSeconds;
+    }
+
+    private static final class Bucket {
+        private final long index;
+        private final Set<String> keys = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger size = new AtomicInteger();
+
+        private Bucket(long index) {
+            this.index = index;
+        }
+    }
+}
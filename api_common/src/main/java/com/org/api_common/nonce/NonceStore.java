@@ -0,0 +1,16 @@
+package com.org.api_common.nonce;
+
+/**
+ * Nonce存储（防重放）
+ * 实现需保证 putIfAbsent 为原子操作
+ */
+public interface NonceStore {
+
+    /**
+     * 原子写入：不存在则写入并设置过期时间
+     * @param key nonce键
+     * @param ttlSeconds 过期时间（秒）
+     * @return true=首次写入（请求有效），false=已存在（重放）
+     */
+    boolean putIfAbsent(String key, long ttlSeconds);
+}
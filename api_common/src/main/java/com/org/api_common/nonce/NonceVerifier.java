@@ -0,0 +1,40 @@
+package com.org.api_common.nonce;
+
+import com.org.api_common.constant.CacheKeyConstants;
+
+/**
+ * Nonce校验引擎：本节点预过滤 + 原子存储判重
+ */
+public class NonceVerifier {
+
+    private final NonceStore nonceStore;
+
+    /** 可为null（不启用本地预过滤） */
+    private final LocalNonceFilter localFilter;
+
+    private final long ttlSeconds;
+
+    public NonceVerifier(NonceStore nonceStore, LocalNonceFilter localFilter, long ttlSeconds) {
+        this.nonceStore = nonceStore;
+        this.localFilter = localFilter;
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    /**
+     * 校验并占用nonce
+     * @return true=首次使用，false=重放
+     */
+    public boolean verify(String ak, String nonce) {
+        String key = CacheKeyConstants.NONCE_PREFIX + ak + ":" + nonce;
+        if (localFilter != null && localFilter.seen(key)) {
+            return false;
+        }
+        if (!nonceStore.putIfAbsent(key, ttlSeconds)) {
+            return false;
+        }
+        if (localFilter != null) {
+            localFilter.record(key);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,24 @@
+package com.org.api_common.nonce;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于Redis的Nonce存储（集群部署）
+ * 一次 SET key 1 NX EX ttl 完成判重+写入，单次往返且无竞态
+ */
+public class RedisNonceStore implements NonceStore {
+
+    private final StringRedisTemplate redisTemplate;
+
+    public RedisNonceStore(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public boolean putIfAbsent(String key, long ttlSeconds) {
+        Boolean success = redisTemplate.opsForValue().setIfAbsent(key, "1", ttlSeconds, TimeUnit.SECONDS);
+        return Boolean.TRUE.equals(success);
+    }
+}
@@ -0,0 +1,191 @@
+package com.org.api_common.util;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 响应时间直方图（对数-线性分桶，类似HDR Histogram，单位毫秒）
+ * 1. 0~15ms 每毫秒一个桶，之后每个2的幂区间再均分16个桶，相对误差不超过 1/16（约6%）
+ * 2. 桶数固定（MAX_TRACKABLE_MS 以上计入最后一桶），任意多个直方图合并后内存不变
+ * 3. 记录线程安全（AtomicLongArray），可被请求线程并发写入；合并、分位数计算在单线程中使用
+ * 4. 序列化只写非空桶：版本 + varint(max) + varint(非空桶数) + [varint(桶下标差), varint(计数)]...
+ */
+public final class LatencyHistogram {
+
+    /** 每个2的幂区间的子桶位数（16个子桶） */
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    /** 分桶上限指数：2^22 ms（约70分钟） */
+    private static final int MAX_EXPONENT = 22;
+    public static final long MAX_TRACKABLE_MS = (1L << (MAX_EXPONENT + 1)) - 1;
+    public static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+    private static final byte VERSION = 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * 记录一次耗时（负数按0计）
+     */
+    public void record(long costMs) {
+        long value = Math.max(0, costMs);
+        counts.incrementAndGet(bucketIndex(value));
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * 合并另一个直方图
+     */
+    public void merge(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = other.counts.get(i);
+            if (count != 0) {
+                counts.addAndGet(i, count);
+            }
+        }
+        max.accumulateAndGet(other.max.get(), Math::max);
+    }
+
+    /**
+     * 合并序列化数据（格式不识别或数据损坏时忽略并返回false）
+     */
+    public boolean merge(byte[] data) {
+        if (data == null || data.length < 3 || data[0] != VERSION) {
+            return false;
+        }
+        int[] pos = {1};
+        try {
+            long dataMax = readVarLong(data, pos);
+            long nonEmpty = readVarLong(data, pos);
+            long[] parsed = new long[BUCKET_COUNT];
+            int index = -1;
+            for (long i = 0; i < nonEmpty; i++) {
+                index += (int) readVarLong(data, pos) + 1;
+                if (index < 0 || index >= BUCKET_COUNT) {
+                    return false;
+                }
+                parsed[index] = readVarLong(data, pos);
+            }
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                if (parsed[i] != 0) {
+                    counts.addAndGet(i, parsed[i]);
+                }
+            }
+            max.accumulateAndGet(dataMax, Math::max);
+            return true;
+        } catch (ArrayIndexOutOfBoundsException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 序列化（只写非空桶）
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32);
+        out.write(VERSION);
+        int nonEmpty = 0;
+        long[] snapshot = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            if (snapshot[i] != 0) {
+                nonEmpty++;
+            }
+        }
+        writeVarLong(out, max.get());
+        writeVarLong(out, nonEmpty);
+        int last = -1;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            if (snapshot[i] != 0) {
+                writeVarLong(out, i - last - 1);
+                writeVarLong(out, snapshot[i]);
+                last = i;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 总次数
+     */
+    public long count() {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * 最大耗时（精确值）
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * 分位数（所在桶的上界，不超过最大值）；无数据返回0
+     * @param percentile 0~100，如 99 表示 p99
+     */
+    public long percentile(double percentile) {
+        long total = count();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * Math.min(100.0, Math.max(0.0, percentile)) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        if (value > MAX_TRACKABLE_MS) {
+            return BUCKET_COUNT - 1;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + sub;
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        int sub = index % SUB_BUCKET_COUNT;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return ((long) (SUB_BUCKET_COUNT + sub) << (exponent - SUB_BUCKET_BITS)) + width - 1;
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(byte[] data, int[] pos) {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = data[pos[0]++];
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new ArrayIndexOutOfBoundsException("varint too long");
+    }
+}
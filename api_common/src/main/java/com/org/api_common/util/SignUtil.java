@@ -7,15 +7,42 @@ import com.org.api_common.exception.BusinessException;
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.TreeMap;
 
 /**
  * 签名工具（HMAC-SHA256）
+ * 1. 每个线程按SK缓存已初始化的Mac实例，避免每次 Mac.getInstance + init
+ * 2. 网关三字段签名（accessKey/nonce/timestamp）直接按字节拼接，不建TreeMap/StringBuilder
+ * 3. 查表转16进制，校验使用常量时间比较
  * @author zhangzhenhui
  */
 public class SignUtil {
 
+    /** 每个线程最多缓存的SK数量（超出按LRU淘汰） */
+    private static final int MAC_CACHE_SIZE_PER_THREAD = 64;
+
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] ACCESS_KEY_PREFIX = "accessKey=".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NONCE_PREFIX = "nonce=".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TIMESTAMP_PREFIX = "timestamp=".getBytes(StandardCharsets.US_ASCII);
+
+    /** 线程内 SK -> 已初始化的Mac */
+    private static final ThreadLocal<Map<String, Mac>> MAC_CACHE = ThreadLocal.withInitial(
+            () -> new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Mac> eldest) {
+                    return size() > MAC_CACHE_SIZE_PER_THREAD;
+                }
+            });
+
+    /** 线程内复用的拼接缓冲区 */
+    private static final ThreadLocal<byte[]> SIGN_BUFFER = ThreadLocal.withInitial(() -> new byte[256]);
+
     /**
      * 生成签名
      * @param params 请求参数（含timestamp、nonce）
@@ -23,33 +50,27 @@ public class SignUtil {
      * @return 签名串
      */
     public static String generateSign(Map<String, Object> params, String sk) {
-        try {
-            // 1. 参数按ASCII升序排序
-            Map<String, Object> sortedParams = new TreeMap<>(params);
-            // 2. 拼接参数为key=value&key=value格式
-            StringBuilder sb = new StringBuilder();
-            for (Map.Entry<String, Object> entry : sortedParams.entrySet()) {
-                if (entry.getValue() != null && !entry.getValue().toString().isEmpty()) {
-                    sb.append(entry.getKey()).append("=").append(entry.getValue()).append("&");
+        // 1. 参数按ASCII升序排序
+        Map<String, Object> sortedParams = new TreeMap<>(params);
+        // 2. 拼接参数为key=value&key=value格式
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Object> entry : sortedParams.entrySet()) {
+            if (entry.getValue() != null && !entry.getValue().toString().isEmpty()) {
+                if (sb.length() > 0) {
+                    sb.append('&');
                 }
+                sb.append(entry.getKey()).append('=').append(entry.getValue());
             }
-            String signStr = sb.substring(0, sb.length() - 1);
-
-            // ========== 【新增调试日志-开始】仅打印拼接串，定位签名问题，不影响业务逻辑 ==========
-            System.out.println("【签名调试】服务端拼接的加密字符串：" + signStr);
-            // ========== 【新增调试日志-结束】 ==========
-
-            // 3. HMAC-SHA256加密
-            Mac mac = Mac.getInstance(SignConstants.SIGN_ALGORITHM);
-            SecretKeySpec keySpec = new SecretKeySpec(sk.getBytes(StandardCharsets.UTF_8), SignConstants.SIGN_ALGORITHM);
-            mac.init(keySpec);
-            byte[] signBytes = mac.doFinal(signStr.getBytes(StandardCharsets.UTF_8));
-
-            // 4. 转16进制字符串
-            return bytesToHex(signBytes);
-        } catch (Exception e) {
-            throw new BusinessException(ErrorCodeEnum.SERVER_ERROR, "签名生成失败：" + e.getMessage());
         }
+        // 3. HMAC-SHA256加密并转16进制
+        return toHex(getMac(sk).doFinal(sb.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * 生成网关签名（accessKey、nonce、timestamp三字段，与 generateSign(Map) 结果一致）
+     */
+    public static String generateSign(String accessKey, Long timestamp, String nonce, String sk) {
+        return toHex(computeSign(accessKey, timestamp, nonce, sk));
     }
 
     /**
@@ -60,9 +81,17 @@ public class SignUtil {
      * @return 是否有效
      */
     public static boolean verifySign(Map<String, Object> params, String sk, String sign) {
-        String generateSign = generateSign(params, sk);
-        System.out.println("后端生成的签名：" + generateSign);
-        return generateSign.equalsIgnoreCase(sign);
+        byte[] expected = generateSign(params, sk).getBytes(StandardCharsets.US_ASCII);
+        byte[] actual = parseHex(sign);
+        return actual != null && MessageDigest.isEqual(parseHex(expected), actual);
+    }
+
+    /**
+     * 验证网关签名（accessKey、nonce、timestamp三字段）
+     */
+    public static boolean verifySign(String accessKey, Long timestamp, String nonce, String sk, String sign) {
+        byte[] actual = parseHex(sign);
+        return actual != null && MessageDigest.isEqual(computeSign(accessKey, timestamp, nonce, sk), actual);
     }
 
     /**
@@ -79,17 +108,133 @@ public class SignUtil {
     }
 
     /**
-     * byte数组转16进制字符串
+     * 按字节拼接 accessKey=..&nonce=..&timestamp=..（ASCII升序，空值跳过）并计算HMAC
+     */
+    private static byte[] computeSign(String accessKey, Long timestamp, String nonce, String sk) {
+        byte[] buf = SIGN_BUFFER.get();
+        int maxLen = ACCESS_KEY_PREFIX.length + NONCE_PREFIX.length + TIMESTAMP_PREFIX.length + 22
+                + utf8Bound(accessKey) + utf8Bound(nonce);
+        if (buf.length < maxLen) {
+            buf = new byte[maxLen];
+            SIGN_BUFFER.set(buf);
+        }
+        int pos = 0;
+        if (accessKey != null && !accessKey.isEmpty()) {
+            pos = writeBytes(buf, pos, ACCESS_KEY_PREFIX);
+            pos = writeUtf8(buf, pos, accessKey);
+        }
+        if (nonce != null && !nonce.isEmpty()) {
+            if (pos > 0) {
+                buf[pos++] = '&';
+            }
+            pos = writeBytes(buf, pos, NONCE_PREFIX);
+            pos = writeUtf8(buf, pos, nonce);
+        }
+        if (timestamp != null) {
+            if (pos > 0) {
+                buf[pos++] = '&';
+            }
+            pos = writeBytes(buf, pos, TIMESTAMP_PREFIX);
+            pos = writeLong(buf, pos, timestamp);
+        }
+        Mac mac = getMac(sk);
+        mac.update(buf, 0, pos);
+        return mac.doFinal();
+    }
+
+    /**
+     * 获取当前线程缓存的Mac（doFinal后自动复位，可直接复用）
+     */
+    private static Mac getMac(String sk) {
+        Map<String, Mac> cache = MAC_CACHE.get();
+        Mac mac = cache.get(sk);
+        if (mac == null) {
+            try {
+                mac = Mac.getInstance(SignConstants.SIGN_ALGORITHM);
+                mac.init(new SecretKeySpec(sk.getBytes(StandardCharsets.UTF_8), SignConstants.SIGN_ALGORITHM));
+            } catch (GeneralSecurityException | RuntimeException e) {
+                throw new BusinessException(ErrorCodeEnum.SERVER_ERROR, "签名生成失败：" + e.getMessage());
+            }
+            cache.put(sk, mac);
+        }
+        return mac;
+    }
+
+    private static int utf8Bound(String value) {
+        return value == null ? 0 : value.length() * 3;
+    }
+
+    private static int writeBytes(byte[] buf, int pos, byte[] src) {
+        System.arraycopy(src, 0, buf, pos, src.length);
+        return pos + src.length;
+    }
+
+    private static int writeUtf8(byte[] buf, int pos, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                // 含非ASCII字符时退回标准编码
+                byte[] encoded = value.substring(i).getBytes(StandardCharsets.UTF_8);
+                return writeBytes(buf, pos, encoded);
+            }
+            buf[pos++] = (byte) c;
+        }
+        return pos;
+    }
+
+    private static int writeLong(byte[] buf, int pos, long value) {
+        if (value == Long.MIN_VALUE) {
+            return writeBytes(buf, pos, Long.toString(value).getBytes(StandardCharsets.US_ASCII));
+        }
+        if (value < 0) {
+            buf[pos++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        int end = pos + digits;
+        for (int i = end - 1; i >= pos; i--) {
+            buf[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return end;
+    }
+
+    /**
+     * byte数组转16进制字符串（小写，查表）
      */
-    private static String bytesToHex(byte[] bytes) {
-        StringBuilder hexStr = new StringBuilder();
-        for (byte b : bytes) {
-            String hex = Integer.toHexString(0xff & b);
-            if (hex.length() == 1) {
-                hexStr.append('0');
+    private static String toHex(byte[] bytes) {
+        byte[] hex = new byte[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int v = bytes[i] & 0xff;
+            hex[i * 2] = HEX_DIGITS[v >>> 4];
+            hex[i * 2 + 1] = HEX_DIGITS[v & 0x0f];
+        }
+        return new String(hex, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * 16进制签名串转byte数组（大小写不敏感，非法格式返回null）
+     */
+    private static byte[] parseHex(String hex) {
+        return hex == null ? null : parseHex(hex.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private static byte[] parseHex(byte[] hex) {
+        if (hex.length % 2 != 0) {
+            return null;
+        }
+        byte[] bytes = new byte[hex.length / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int high = Character.digit(hex[i * 2], 16);
+            int low = Character.digit(hex[i * 2 + 1], 16);
+            if (high < 0 || low < 0) {
+                return null;
             }
-            hexStr.append(hex);
+            bytes[i] = (byte) ((high << 4) | low);
         }
-        return hexStr.toString().toLowerCase();
+        return bytes;
     }
-}
\ No newline at end of file
+}
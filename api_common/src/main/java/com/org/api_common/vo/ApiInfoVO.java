@@ -11,6 +11,9 @@ public class ApiInfoVO {
     private String method;
     private String apiDesc;
     private Integer status;
+    private String rateLimitAlgorithm;
+    private Integer rateLimitCount;
+    private Integer rateLimitWindow;
     private LocalDateTime createTime;
     private LocalDateTime updateTime;
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.org.api_common.vo;
+
+import com.org.api_common.entity.ApiCallLog;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 调用日志游标分页VO（按 call_time、id 倒序）
+ */
+@Data
+public class CallLogScrollVO {
+    /** 本页记录 */
+    private List<ApiCallLog> records;
+
+    /** 下一页游标，原样传回即可；为空表示没有更多 */
+    private String nextCursor;
+
+    /** 是否还有更多 */
+    private Boolean hasMore;
+
+    /** 符合条件的总条数（仅 withTotal=true 时统计，否则为空） */
+    private Long total;
+}
@@ -0,0 +1,70 @@
+package com.org.api_common.vo;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 任意时间范围调用统计VO（基于小时/日汇总表）
+ */
+@Data
+public class CallStatRangeVO {
+    /** 统计开始时间（取整到小时） */
+    private LocalDateTime startTime;
+
+    /** 统计结束时间（不含，取整到小时） */
+    private LocalDateTime endTime;
+
+    /** 总调用次数 */
+    private Long totalCalls;
+
+    /** 成功调用次数 */
+    private Long successCalls;
+
+    /** 失败调用次数 */
+    private Long failedCalls;
+
+    /** 平均响应时间（毫秒） */
+    private Double avgResponseTime;
+
+    /** 最小响应时间（毫秒） */
+    private Long minResponseTime;
+
+    /** 最大响应时间（毫秒） */
+    private Long maxResponseTime;
+
+    /** 响应时间分布：桶名（如 "<=100ms"、">3000ms"）-> 次数 */
+    private Map<String, Long> latencyHistogram;
+
+    /** 各接口调用统计（按调用次数降序） */
+    private List<ApiStat> apiStats;
+
+    /**
+     * 接口调用统计
+     */
+    @Data
+    public static class ApiStat {
+        /** 接口ID */
+        private Long apiId;
+
+        /** 接口名称 */
+        private String apiName;
+
+        /** 调用次数 */
+        private Long callCount;
+
+        /** 成功次数 */
+        private Long successCount;
+
+        /** 失败次数 */
+        private Long failCount;
+
+        /** 平均响应时间（毫秒） */
+        private Double avgResponseTime;
+
+        /** 最大响应时间（毫秒） */
+        private Long maxResponseTime;
+    }
+}
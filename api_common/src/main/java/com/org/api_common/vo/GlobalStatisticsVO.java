@@ -22,6 +22,24 @@ public class GlobalStatisticsVO {
 
     /** 平均响应时间（毫秒），可选字段 */
     private Double avgResponseTime;
+
+    /** P50响应时间（毫秒），基于Redis保留期内的响应时间直方图 */
+    private Long p50ResponseTime;
+
+    /** P90响应时间（毫秒） */
+    private Long p90ResponseTime;
+
+    /** P99响应时间（毫秒） */
+    private Long p99ResponseTime;
+
+    /** 最大响应时间（毫秒） */
+    private Long maxResponseTime;
+
+    /** 去重调用方（accessKey）数，基于Redis保留期内的HyperLogLog，误差约0.81% */
+    private Long uniqueCallers;
+
+    /** 去重客户端IP数 */
+    private Long uniqueIps;
 }
 
 
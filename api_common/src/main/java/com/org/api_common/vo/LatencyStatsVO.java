@@ -0,0 +1,63 @@
+package com.org.api_common.vo;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 响应时间分位数统计VO（由各节点分钟/日直方图合并计算，分位数相对误差约6%，最大值精确）
+ */
+@Data
+public class LatencyStatsVO {
+    /** 统计开始时间 */
+    private LocalDateTime startTime;
+
+    /** 统计结束时间 */
+    private LocalDateTime endTime;
+
+    /** 调用次数 */
+    private Long count;
+
+    /** P50响应时间（毫秒） */
+    private Long p50;
+
+    /** P90响应时间（毫秒） */
+    private Long p90;
+
+    /** P99响应时间（毫秒） */
+    private Long p99;
+
+    /** 最大响应时间（毫秒） */
+    private Long max;
+
+    /** 各接口分位数（按调用次数降序） */
+    private List<ApiLatency> apis;
+
+    /**
+     * 单个接口的响应时间分位数
+     */
+    @Data
+    public static class ApiLatency {
+        /** 接口路径 */
+        private String apiPath;
+
+        /** 接口名称 */
+        private String apiName;
+
+        /** 调用次数 */
+        private Long count;
+
+        /** P50响应时间（毫秒） */
+        private Long p50;
+
+        /** P90响应时间（毫秒） */
+        private Long p90;
+
+        /** P99响应时间（毫秒） */
+        private Long p99;
+
+        /** 最大响应时间（毫秒） */
+        private Long max;
+    }
+}
@@ -20,6 +20,9 @@ public class MyStatisticsVO {
     /** 今日调用次数 */
     private Long todayCalls;
     
+    /** 平均响应时间（毫秒） */
+    private Double avgResponseTime;
+    
     /** 各接口调用统计 */
     private List<ApiCallStat> apiCallStats;
     
@@ -36,6 +39,15 @@ public class MyStatisticsVO {
         
         /** 调用次数 */
         private Long callCount;
+        
+        /** 成功次数 */
+        private Long successCount;
+        
+        /** 失败次数 */
+        private Long failCount;
+        
+        /** 平均响应时间（毫秒） */
+        private Double avgResponseTime;
     }
 }
 
@@ -0,0 +1,45 @@
+package com.org.api_common.vo;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 去重调用方/IP统计VO（由按接口按天的HyperLogLog合并计算，标准误差约0.81%）
+ */
+@Data
+public class UniqueCallerStatsVO {
+    /** 统计开始日期 */
+    private LocalDate startDate;
+
+    /** 统计结束日期（含） */
+    private LocalDate endDate;
+
+    /** 去重调用方（accessKey）数，跨接口、跨天去重 */
+    private Long uniqueCallers;
+
+    /** 去重客户端IP数，跨接口、跨天去重 */
+    private Long uniqueIps;
+
+    /** 各接口去重数（按去重调用方数降序） */
+    private List<ApiUnique> apis;
+
+    /**
+     * 单个接口的去重统计
+     */
+    @Data
+    public static class ApiUnique {
+        /** 接口路径 */
+        private String apiPath;
+
+        /** 接口名称 */
+        private String apiName;
+
+        /** 去重调用方数 */
+        private Long uniqueCallers;
+
+        /** 去重客户端IP数 */
+        private Long uniqueIps;
+    }
+}
@@ -0,0 +1,216 @@
+package com.org.api_common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 响应时间直方图测试：分桶边界、分位数、序列化往返、损坏数据拒绝
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void linearBucketsBelowSixteen() {
+        for (int v = 0; v < 16; v++) {
+            assertEquals(v, LatencyHistogram.bucketIndex(v));
+            assertEquals(v, LatencyHistogram.bucketUpperBound(v));
+        }
+    }
+
+    @Test
+    public void firstLogBucketsAtSixteen() {
+        // 16~31 仍是每毫秒一个桶，32 起桶宽翻倍
+        assertEquals(16, LatencyHistogram.bucketIndex(16));
+        assertEquals(16, LatencyHistogram.bucketUpperBound(16));
+        assertEquals(31, LatencyHistogram.bucketIndex(31));
+        assertEquals(31, LatencyHistogram.bucketUpperBound(31));
+        assertEquals(32, LatencyHistogram.bucketIndex(32));
+        assertEquals(32, LatencyHistogram.bucketIndex(33));
+        assertEquals(33, LatencyHistogram.bucketUpperBound(32));
+    }
+
+    @Test
+    public void bucketsAtPowersOfTwo() {
+        for (int k = 5; k <= 22; k++) {
+            long power = 1L << k;
+            int index = LatencyHistogram.bucketIndex(power);
+            assertEquals((k - 3) * 16, index, "2^" + k);
+            assertEquals(index - 1, LatencyHistogram.bucketIndex(power - 1), "2^" + k + "-1");
+            assertEquals(power - 1, LatencyHistogram.bucketUpperBound(index - 1), "2^" + k + "-1");
+            assertEquals(power + (power >>> 4) - 1, LatencyHistogram.bucketUpperBound(index), "2^" + k);
+        }
+    }
+
+    @Test
+    public void clampsAtMaxTrackable() {
+        int last = LatencyHistogram.BUCKET_COUNT - 1;
+        assertEquals(last, LatencyHistogram.bucketIndex(LatencyHistogram.MAX_TRACKABLE_MS));
+        assertEquals(last, LatencyHistogram.bucketIndex(LatencyHistogram.MAX_TRACKABLE_MS + 1));
+        assertEquals(last, LatencyHistogram.bucketIndex(Long.MAX_VALUE));
+        assertEquals(LatencyHistogram.MAX_TRACKABLE_MS, LatencyHistogram.bucketUpperBound(last));
+    }
+
+    @Test
+    public void bucketsAreContiguousWithBoundedError() {
+        for (int i = 0; i < LatencyHistogram.BUCKET_COUNT - 1; i++) {
+            long upper = LatencyHistogram.bucketUpperBound(i);
+            assertEquals(i, LatencyHistogram.bucketIndex(upper));
+            assertEquals(i + 1, LatencyHistogram.bucketIndex(upper + 1));
+        }
+        for (long v = 0; v < 100_000; v += 7) {
+            long upper = LatencyHistogram.bucketUpperBound(LatencyHistogram.bucketIndex(v));
+            assertTrue(upper >= v && upper - v <= v / 16, "value " + v + " upper " + upper);
+        }
+    }
+
+    @Test
+    public void percentileOfEmptyIsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.percentile(50));
+        assertEquals(0, histogram.percentile(99));
+        assertEquals(0, histogram.max());
+    }
+
+    @Test
+    public void percentileOfSingleValueIsExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(100);
+        // 100 所在桶上界为 103，不超过最大值
+        assertEquals(100, histogram.percentile(0));
+        assertEquals(100, histogram.percentile(50));
+        assertEquals(100, histogram.percentile(100));
+    }
+
+    @Test
+    public void percentileRankRoundsUp() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int v = 1; v <= 4; v++) {
+            histogram.record(v);
+        }
+        assertEquals(1, histogram.percentile(0));
+        assertEquals(1, histogram.percentile(25));
+        assertEquals(2, histogram.percentile(26));
+        assertEquals(2, histogram.percentile(50));
+        assertEquals(4, histogram.percentile(99));
+        assertEquals(4, histogram.percentile(100));
+        // 超出范围按 0/100 处理
+        assertEquals(1, histogram.percentile(-5));
+        assertEquals(4, histogram.percentile(150));
+    }
+
+    @Test
+    public void percentileReportsBucketUpperBound() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(5);
+        histogram.record(1000);
+        histogram.record(2000);
+        histogram.record(-3);
+        assertEquals(4, histogram.count());
+        assertEquals(0, histogram.percentile(25));
+        assertEquals(5, histogram.percentile(50));
+        // 1000 落在 [992, 1023] 桶
+        assertEquals(1023, histogram.percentile(75));
+        assertEquals(2000, histogram.percentile(99));
+        assertEquals(2000, histogram.max());
+    }
+
+    @Test
+    public void roundTripThroughBytes() {
+        LatencyHistogram source = new LatencyHistogram();
+        long[] values = {0, 3, 15, 16, 31, 32, 100, 100, 1023, 1024, 65_536, LatencyHistogram.MAX_TRACKABLE_MS + 10};
+        for (long v : values) {
+            source.record(v);
+        }
+        byte[] bytes = source.toBytes();
+
+        LatencyHistogram copy = new LatencyHistogram();
+        assertTrue(copy.merge(bytes));
+        assertEquals(source.count(), copy.count());
+        assertEquals(source.max(), copy.max());
+        for (double p : new double[]{0, 10, 50, 90, 99, 100}) {
+            assertEquals(source.percentile(p), copy.percentile(p), "p" + p);
+        }
+        assertArrayEquals(bytes, copy.toBytes());
+
+        // 再合并一次计数翻倍，最大值不变
+        assertTrue(copy.merge(bytes));
+        assertEquals(source.count() * 2, copy.count());
+        assertEquals(source.max(), copy.max());
+    }
+
+    @Test
+    public void roundTripEmpty() {
+        byte[] bytes = new LatencyHistogram().toBytes();
+        assertArrayEquals(new byte[]{1, 0, 0}, bytes);
+        LatencyHistogram copy = new LatencyHistogram();
+        assertTrue(copy.merge(bytes));
+        assertEquals(0, copy.count());
+    }
+
+    @Test
+    public void mergeHistogramMatchesMergeBytes() {
+        LatencyHistogram a = new LatencyHistogram();
+        LatencyHistogram b = new LatencyHistogram();
+        for (int i = 0; i < 200; i++) {
+            a.record(i * 3L);
+            b.record(i * 11L);
+        }
+        LatencyHistogram viaObject = new LatencyHistogram();
+        viaObject.merge(a);
+        viaObject.merge(b);
+        LatencyHistogram viaBytes = new LatencyHistogram();
+        assertTrue(viaBytes.merge(a.toBytes()));
+        assertTrue(viaBytes.merge(b.toBytes()));
+        assertArrayEquals(viaObject.toBytes(), viaBytes.toBytes());
+    }
+
+    @Test
+    public void rejectsMalformedHeader() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertFalse(histogram.merge((byte[]) null));
+        assertFalse(histogram.merge(new byte[0]));
+        assertFalse(histogram.merge(new byte[]{1, 0}));
+        assertFalse(histogram.merge(new byte[]{2, 0, 0}));
+        assertEquals(0, histogram.count());
+    }
+
+    @Test
+    public void rejectsOutOfRangeBucketIndex() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        // 版本、max=0、1个非空桶、下标差=BUCKET_COUNT（越界）、计数=1
+        assertFalse(histogram.merge(new byte[]{1, 0, 1, (byte) 0xC0, 0x02, 1}));
+        // 下标差截断为 int 后为负数
+        assertFalse(histogram.merge(new byte[]{1, 0, 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F, 1}));
+        assertEquals(0, histogram.count());
+    }
+
+    @Test
+    public void rejectsOverlongVarint() {
+        byte[] data = new byte[12];
+        Arrays.fill(data, (byte) 0xFF);
+        data[0] = 1;
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertFalse(histogram.merge(data));
+        assertEquals(0, histogram.max());
+    }
+
+    @Test
+    public void rejectsEveryTruncationWithoutPartialMerge() {
+        LatencyHistogram source = new LatencyHistogram();
+        for (int i = 0; i < 50; i++) {
+            source.record(i * 37L);
+        }
+        byte[] bytes = source.toBytes();
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int length = 0; length < bytes.length; length++) {
+            assertFalse(histogram.merge(Arrays.copyOf(bytes, length)), "截断到" + length + "字节");
+        }
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.max());
+    }
+}
@@ -0,0 +1,113 @@
+package com.org.api_common.util;
+
+import com.org.api_common.constant.SignConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 签名校验微基准：旧实现（每次 Mac.getInstance + TreeMap + toHexString + equalsIgnoreCase）
+ * 对比 SignUtil 当前实现（线程内缓存Mac + 字节拼接 + 查表 + 常量时间比较）
+ *
+ * 运行：mvn -pl api_common test-compile exec:java -Dexec.classpathScope=test
+ *      -Dexec.mainClass=com.org.api_common.util.SignUtilBenchmark
+ * 或在IDE中直接运行 main 方法
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class SignUtilBenchmark {
+
+    private String accessKey;
+    private String secretKey;
+    private long timestamp;
+    private String nonce;
+    private String sign;
+
+    @Setup
+    public void setup() {
+        accessKey = "7jxtUmuITH8lC68J";
+        secretKey = "NniZjv7CxqEmBYa0cIxijsPW2dgLHpDZ";
+        timestamp = System.currentTimeMillis() / 1000;
+        nonce = UUID.randomUUID().toString().replace("-", "");
+        sign = SignUtil.generateSign(accessKey, timestamp, nonce, secretKey);
+    }
+
+    @Benchmark
+    public boolean legacyVerify() throws Exception {
+        Map<String, Object> params = new HashMap<>();
+        params.put("accessKey", accessKey);
+        params.put("timestamp", timestamp);
+        params.put("nonce", nonce);
+        return legacyGenerateSign(params, secretKey).equalsIgnoreCase(sign);
+    }
+
+    @Benchmark
+    public boolean mapVerify() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("accessKey", accessKey);
+        params.put("timestamp", timestamp);
+        params.put("nonce", nonce);
+        return SignUtil.verifySign(params, secretKey, sign);
+    }
+
+    @Benchmark
+    public boolean fastVerify() {
+        return SignUtil.verifySign(accessKey, timestamp, nonce, secretKey, sign);
+    }
+
+    /**
+     * 旧版 SignUtil.generateSign 实现（去掉stdout打印，仅保留计算开销）
+     */
+    private static String legacyGenerateSign(Map<String, Object> params, String sk) throws Exception {
+        Map<String, Object> sortedParams = new TreeMap<>(params);
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Object> entry : sortedParams.entrySet()) {
+            if (entry.getValue() != null && !entry.getValue().toString().isEmpty()) {
+                sb.append(entry.getKey()).append("=").append(entry.getValue()).append("&");
+            }
+        }
+        String signStr = sb.substring(0, sb.length() - 1);
+        Mac mac = Mac.getInstance(SignConstants.SIGN_ALGORITHM);
+        mac.init(new SecretKeySpec(sk.getBytes(StandardCharsets.UTF_8), SignConstants.SIGN_ALGORITHM));
+        byte[] signBytes = mac.doFinal(signStr.getBytes(StandardCharsets.UTF_8));
+        StringBuilder hexStr = new StringBuilder();
+        for (byte b : signBytes) {
+            String hex = Integer.toHexString(0xff & b);
+            if (hex.length() == 1) {
+                hexStr.append('0');
+            }
+            hexStr.append(hex);
+        }
+        return hexStr.toString().toLowerCase();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(SignUtilBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
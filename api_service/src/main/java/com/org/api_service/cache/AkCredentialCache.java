@@ -0,0 +1,218 @@
+package com.org.api_service.cache;
+
+import com.org.api_common.constant.CacheKeyConstants;
+import com.org.api_common.entity.SysUser;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AK凭证本地缓存（AK -> 有效用户凭证快照）
+ * 1. 只缓存 selectByAccessKey 查到的有效用户（status=1），命中时不访问数据库
+ * 2. AK相关写操作提交后通过Redis发布订阅广播失效，集群内所有节点同步清除
+ * 3. 容量有上限，条目带TTL兜底（防止失效消息丢失导致长期脏读）
+ */
+@Slf4j
+@Component
+public class AkCredentialCache implements MessageListener {
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired(required = false)
+    private RedisMessageListenerContainer listenerContainer;
+
+    /** 最大缓存条目数 */
+    @Value("${api.cache.ak.max-size:10000}")
+    private int maxSize;
+
+    /** 条目存活时间（秒） */
+    @Value("${api.cache.ak.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private final ConcurrentHashMap<String, CachedCredential> cache = new ConcurrentHashMap<>();
+
+    /** 失效序号：加载期间发生过失效则放弃回填，避免把旧数据写回缓存 */
+    private final AtomicLong invalidateSeq = new AtomicLong();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder invalidateCount = new LongAdder();
+
+    @PostConstruct
+    public void subscribe() {
+        if (listenerContainer != null) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(CacheKeyConstants.AK_CACHE_INVALIDATE_CHANNEL));
+        } else {
+            log.warn("[AkCache] 未找到Redis监听容器，AK缓存仅在本节点失效");
+        }
+    }
+
+    /**
+     * 查询缓存（未命中/已过期返回null）
+     * @return 用户快照副本，调用方可随意修改
+     */
+    public SysUser get(String accessKey) {
+        CachedCredential cached = cache.get(accessKey);
+        if (cached == null) {
+            missCount.increment();
+            return null;
+        }
+        if (cached.expireAt() < System.currentTimeMillis()) {
+            cache.remove(accessKey, cached);
+            missCount.increment();
+            return null;
+        }
+        hitCount.increment();
+        return cached.toSysUser();
+    }
+
+    /**
+     * 加载前获取当前失效序号，回填时传入
+     */
+    public long currentStamp() {
+        return invalidateSeq.get();
+    }
+
+    /**
+     * 回填缓存（加载期间有失效发生则丢弃本次回填）
+     */
+    public void put(String accessKey, SysUser user, long stamp) {
+        if (user == null || stamp != invalidateSeq.get()) {
+            return;
+        }
+        if (cache.size() >= maxSize) {
+            evictOne();
+        }
+        cache.put(accessKey, CachedCredential.of(user, System.currentTimeMillis() + ttlSeconds * 1000));
+    }
+
+    /**
+     * 失效指定AK：本节点立即清除，并在事务提交后（无事务则立即）广播给集群其他节点
+     */
+    public void invalidate(String accessKey) {
+        if (accessKey == null) {
+            return;
+        }
+        evictLocal(accessKey);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    // 提交后再清一次，防止事务内被其他请求读到旧数据回填
+                    evictLocal(accessKey);
+                    publish(accessKey);
+                }
+            });
+        } else {
+            publish(accessKey);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        evictLocal(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 缓存统计（命中率等）
+     */
+    public Map<String, Object> stats() {
+        long hits = hitCount.sum();
+        long misses = missCount.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", cache.size());
+        stats.put("hitCount", hits);
+        stats.put("missCount", misses);
+        stats.put("hitRate", hits + misses == 0 ? 0.0 : hits * 1.0 / (hits + misses));
+        stats.put("invalidateCount", invalidateCount.sum());
+        return stats;
+    }
+
+    private void evictLocal(String accessKey) {
+        invalidateSeq.incrementAndGet();
+        if (cache.remove(accessKey) != null) {
+            invalidateCount.increment();
+        }
+    }
+
+    private void publish(String accessKey) {
+        try {
+            redisTemplate.convertAndSend(CacheKeyConstants.AK_CACHE_INVALIDATE_CHANNEL, accessKey);
+        } catch (Exception e) {
+            // 广播失败时其他节点依赖TTL兜底
+            log.error("[AkCache] 广播AK缓存失效失败: ak={}", accessKey, e);
+        }
+    }
+
+    /**
+     * 容量满时优先淘汰已过期条目，否则随机淘汰一个
+     */
+    private void evictOne() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<String, CachedCredential>> it = cache.entrySet().iterator();
+        Map.Entry<String, CachedCredential> victim = null;
+        int scanned = 0;
+        while (it.hasNext() && scanned++ < 16) {
+            Map.Entry<String, CachedCredential> entry = it.next();
+            if (entry.getValue().expireAt() < now) {
+                victim = entry;
+                break;
+            }
+            if (victim == null) {
+                victim = entry;
+            }
+        }
+        if (victim != null) {
+            cache.remove(victim.getKey(), victim.getValue());
+        }
+    }
+
+    /**
+     * 不可变凭证快照（与 selectByAccessKey 查询列一致）
+     */
+    private record CachedCredential(Long id, String username, String password, String accessKey,
+                                    String secretKey, Integer status, LocalDateTime createTime,
+                                    LocalDateTime updateTime, LocalDateTime expireTime,
+                                    Integer permissionType, long expireAt) {
+
+        static CachedCredential of(SysUser user, long expireAt) {
+            return new CachedCredential(user.getId(), user.getUsername(), user.getPassword(), user.getAccessKey(),
+                    user.getSecretKey(), user.getStatus(), user.getCreateTime(), user.getUpdateTime(),
+                    user.getExpireTime(), user.getPermissionType(), expireAt);
+        }
+
+        SysUser toSysUser() {
+            SysUser user = new SysUser();
+            user.setId(id);
+            user.setUsername(username);
+            user.setPassword(password);
+            user.setAccessKey(accessKey);
+            user.setSecretKey(secretKey);
+            user.setStatus(status);
+            user.setCreateTime(createTime);
+            user.setUpdateTime(updateTime);
+            user.setExpireTime(expireTime);
+            user.setPermissionType(permissionType);
+            return user;
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package com.org.api_service.calllog;
+
+import com.alibaba.fastjson2.JSON;
+import com.org.api_common.entity.ApiCallLog;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 调用日志队列编解码
+ * 写入格式由 api.call-log.codec.format 决定：json（fastjson2文本，旧格式）/ binary（版本化紧凑二进制）
+ * 读取时按首字节自动识别，两种格式可以在同一队列中共存，迁移期间先升级消费端再切换写入端即可
+ *
+ * binary 布局（v2 在 v1 末尾追加 apiName）：
+ * <pre>
+ * magic(1) version(1) presence(varint，每个非空字段一位)
+ * 按固定顺序写非空字段：
+ *   Long    -> zigzag varint
+ *   Integer -> zigzag varint
+ *   String  -> varint长度 + UTF-8
+ *   大文本   -> 标志(1，0原文/1 Deflate) + [原长度varint] + varint长度 + 字节（requestParams、responseResult）
+ *   时间     -> UTC秒 zigzag varint + 纳秒 varint
+ * </pre>
+ * 新增字段只能追加在末尾并提升 version；解码端遇到更高版本直接拒绝（进入死信），不会错位解析
+ * 解码时校验 presence 不含该版本没有的字段、长度不超过剩余字节、读完后没有多余字节，损坏数据一律抛 IllegalArgumentException
+ */
+public class CallLogCodec {
+
+    /** binary 格式首字节（不可能出现在JSON文本开头） */
+    static final byte MAGIC = (byte) 0xC1;
+    static final byte VERSION = 2;
+    /** 仍可解码的最低版本（v1 没有 apiName） */
+    private static final byte MIN_VERSION = 1;
+
+    /** Deflate 最大压缩比约 1032:1，声明的原长度超过该倍数视为损坏（避免按损坏的长度分配大数组） */
+    private static final int MAX_DEFLATE_RATIO = 1100;
+
+    private static final int FLAG_RAW = 0;
+    private static final int FLAG_DEFLATE = 1;
+
+    private static final int F_ID = 1;
+    private static final int F_USER_ID = 1 << 1;
+    private static final int F_ACCESS_KEY = 1 << 2;
+    private static final int F_API_ID = 1 << 3;
+    private static final int F_IP = 1 << 4;
+    private static final int F_REQUEST_PARAMS = 1 << 5;
+    private static final int F_RESPONSE_RESULT = 1 << 6;
+    private static final int F_STATUS = 1 << 7;
+    private static final int F_ERROR_MSG = 1 << 8;
+    private static final int F_COST_TIME = 1 << 9;
+    private static final int F_CALL_TIME = 1 << 10;
+    private static final int F_API_PATH = 1 << 11;
+    private static final int F_METHOD = 1 << 12;
+    private static final int F_API_NAME = 1 << 13;
+
+    /** 各版本允许出现的字段 */
+    private static final int V1_FIELDS = (F_METHOD << 1) - 1;
+    private static final int V2_FIELDS = V1_FIELDS | F_API_NAME;
+
+    private final boolean binary;
+    /** 大文本超过该字节数时压缩，<=0 不压缩 */
+    private final int compressThreshold;
+
+    public CallLogCodec(boolean binary, int compressThreshold) {
+        this.binary = binary;
+        this.compressThreshold = compressThreshold;
+    }
+
+    public String format() {
+        return binary ? "binary" : "json";
+    }
+
+    public byte[] encode(ApiCallLog callLog) {
+        if (!binary) {
+            return JSON.toJSONBytes(callLog);
+        }
+        Writer out = new Writer();
+        out.buf.write(MAGIC);
+        out.buf.write(VERSION);
+        int presence = (callLog.getId() != null ? F_ID : 0)
+                | (callLog.getUserId() != null ? F_USER_ID : 0)
+                | (callLog.getAccessKey() != null ? F_ACCESS_KEY : 0)
+                | (callLog.getApiId() != null ? F_API_ID : 0)
+                | (callLog.getIp() != null ? F_IP : 0)
+                | (callLog.getRequestParams() != null ? F_REQUEST_PARAMS : 0)
+                | (callLog.getResponseResult() != null ? F_RESPONSE_RESULT : 0)
+                | (callLog.getStatus() != null ? F_STATUS : 0)
+                | (callLog.getErrorMsg() != null ? F_ERROR_MSG : 0)
+                | (callLog.getCostTime() != null ? F_COST_TIME : 0)
+                | (callLog.getCallTime() != null ? F_CALL_TIME : 0)
+                | (callLog.getApiPath() != null ? F_API_PATH : 0)
+                | (callLog.getMethod() != null ? F_METHOD : 0)
+                | (callLog.getApiName() != null ? F_API_NAME : 0);
+        out.varint(presence);
+        if (callLog.getId() != null) out.zigzag(callLog.getId());
+        if (callLog.getUserId() != null) out.zigzag(callLog.getUserId());
+        if (callLog.getAccessKey() != null) out.string(callLog.getAccessKey());
+        if (callLog.getApiId() != null) out.zigzag(callLog.getApiId());
+        if (callLog.getIp() != null) out.string(callLog.getIp());
+        if (callLog.getRequestParams() != null) out.text(callLog.getRequestParams(), compressThreshold);
+        if (callLog.getResponseResult() != null) out.text(callLog.getResponseResult(), compressThreshold);
+        if (callLog.getStatus() != null) out.zigzag(callLog.getStatus());
+        if (callLog.getErrorMsg() != null) out.string(callLog.getErrorMsg());
+        if (callLog.getCostTime() != null) out.zigzag(callLog.getCostTime());
+        if (callLog.getCallTime() != null) out.time(callLog.getCallTime());
+        if (callLog.getApiPath() != null) out.string(callLog.getApiPath());
+        if (callLog.getMethod() != null) out.string(callLog.getMethod());
+        if (callLog.getApiName() != null) out.string(callLog.getApiName());
+        return out.buf.toByteArray();
+    }
+
+    /**
+     * 解码（自动识别 binary / JSON 文本）
+     * @throws IllegalArgumentException 格式无法识别或已损坏
+     */
+    public ApiCallLog decode(byte[] payload) {
+        if (payload == null || payload.length == 0) {
+            return null;
+        }
+        if (payload[0] != MAGIC) {
+            try {
+                return JSON.parseObject(payload, ApiCallLog.class);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("调用日志JSON格式损坏: " + e.getMessage(), e);
+            }
+        }
+        try {
+            return decodeBinary(ByteBuffer.wrap(payload));
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("调用日志二进制格式损坏: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 日志输出用的可读形式
+     */
+    public static String describe(byte[] payload) {
+        if (payload == null) {
+            return "null";
+        }
+        if (payload.length > 0 && payload[0] == MAGIC) {
+            return "binary(" + payload.length + " bytes)";
+        }
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+
+    private static ApiCallLog decodeBinary(ByteBuffer in) {
+        in.get();
+        int version = in.get();
+        if (version < MIN_VERSION || version > VERSION) {
+            throw new IllegalArgumentException("不支持的版本: " + version);
+        }
+        long presence = readVarint(in);
+        int allowed = version == 1 ? V1_FIELDS : V2_FIELDS;
+        if ((presence & ~allowed) != 0) {
+            throw new IllegalArgumentException("版本" + version + "不支持的字段: " + Long.toBinaryString(presence));
+        }
+        ApiCallLog callLog = new ApiCallLog();
+        if ((presence & F_ID) != 0) callLog.setId(readZigzag(in));
+        if ((presence & F_USER_ID) != 0) callLog.setUserId(readZigzag(in));
+        if ((presence & F_ACCESS_KEY) != 0) callLog.setAccessKey(readString(in));
+        if ((presence & F_API_ID) != 0) callLog.setApiId(readZigzag(in));
+        if ((presence & F_IP) != 0) callLog.setIp(readString(in));
+        if ((presence & F_REQUEST_PARAMS) != 0) callLog.setRequestParams(readText(in));
+        if ((presence & F_RESPONSE_RESULT) != 0) callLog.setResponseResult(readText(in));
+        if ((presence & F_STATUS) != 0) callLog.setStatus((int) readZigzag(in));
+        if ((presence & F_ERROR_MSG) != 0) callLog.setErrorMsg(readString(in));
+        if ((presence & F_COST_TIME) != 0) callLog.setCostTime(readZigzag(in));
+        if ((presence & F_CALL_TIME) != 0) {
+            long seconds = readZigzag(in);
+            int nanos = (int) readVarint(in);
+            callLog.setCallTime(LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC));
+        }
+        if ((presence & F_API_PATH) != 0) callLog.setApiPath(readString(in));
+        if ((presence & F_METHOD) != 0) callLog.setMethod(readString(in));
+        if ((presence & F_API_NAME) != 0) callLog.setApiName(readString(in));
+        if (in.hasRemaining()) {
+            throw new IllegalArgumentException("末尾有多余字节: " + in.remaining());
+        }
+        return callLog;
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("varint过长");
+    }
+
+    private static long readZigzag(ByteBuffer in) {
+        long raw = readVarint(in);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    private static byte[] readBytes(ByteBuffer in) {
+        long length = readVarint(in);
+        if (length < 0 || length > in.remaining()) {
+            throw new IllegalArgumentException("长度越界: " + length);
+        }
+        byte[] bytes = new byte[(int) length];
+        in.get(bytes);
+        return bytes;
+    }
+
+    private static String readString(ByteBuffer in) {
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+
+    private static String readText(ByteBuffer in) {
+        int flag = in.get();
+        if (flag == FLAG_RAW) {
+            return readString(in);
+        }
+        if (flag != FLAG_DEFLATE) {
+            throw new IllegalArgumentException("未知的压缩标志: " + flag);
+        }
+        long declaredLength = readVarint(in);
+        byte[] compressed = readBytes(in);
+        if (declaredLength < 0 || declaredLength > (long) compressed.length * MAX_DEFLATE_RATIO) {
+            throw new IllegalArgumentException("原长度异常: " + declaredLength);
+        }
+        int originalLength = (int) declaredLength;
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] original = new byte[originalLength];
+            int n = 0;
+            while (n < originalLength && !inflater.finished()) {
+                int read = inflater.inflate(original, n, originalLength - n);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                n += read;
+            }
+            if (n == originalLength && !inflater.finished()) {
+                // 输出恰好填满时流尾（含校验和）尚未处理，再读一次确认没有多余数据且校验和正确
+                if (inflater.inflate(new byte[1]) != 0) {
+                    n++;
+                }
+            }
+            if (n != originalLength || !inflater.finished()) {
+                throw new IllegalArgumentException("解压长度不一致");
+            }
+            return new String(original, StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("解压失败", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static final class Writer {
+
+        private final ByteArrayOutputStream buf = new ByteArrayOutputStream(256);
+
+        void varint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                buf.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buf.write((int) value);
+        }
+
+        void zigzag(long value) {
+            varint((value << 1) ^ (value >> 63));
+        }
+
+        void bytes(byte[] bytes) {
+            varint(bytes.length);
+            buf.writeBytes(bytes);
+        }
+
+        void string(String value) {
+            bytes(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        void time(LocalDateTime time) {
+            zigzag(time.toEpochSecond(ZoneOffset.UTC));
+            varint(time.getNano());
+        }
+
+        void text(String value, int compressThreshold) {
+            byte[] raw = value.getBytes(StandardCharsets.UTF_8);
+            if (compressThreshold > 0 && raw.length >= compressThreshold) {
+                byte[] compressed = deflate(raw);
+                if (compressed.length < raw.length) {
+                    buf.write(FLAG_DEFLATE);
+                    varint(raw.length);
+                    bytes(compressed);
+                    return;
+                }
+            }
+            buf.write(FLAG_RAW);
+            bytes(raw);
+        }
+
+        private static byte[] deflate(byte[] raw) {
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try {
+                deflater.setInput(raw);
+                deflater.finish();
+                ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 16);
+                byte[] chunk = new byte[Math.min(raw.length, 8192)];
+                while (!deflater.finished()) {
+                    int n = deflater.deflate(chunk);
+                    out.write(chunk, 0, n);
+                }
+                return out.toByteArray();
+            } finally {
+                deflater.end();
+            }
+        }
+    }
+}
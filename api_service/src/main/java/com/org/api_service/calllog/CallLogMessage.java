@@ -0,0 +1,9 @@
+package com.org.api_service.calllog;
+
+/**
+ * 队列中的一条调用日志
+ * @param id 消息ID（Stream模式为记录ID，List模式为null）
+ * @param payload 编码后的调用日志（见 CallLogCodec）
+ */
+public record CallLogMessage(String id, byte[] payload) {
+}
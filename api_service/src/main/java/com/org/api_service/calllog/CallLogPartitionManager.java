@@ -0,0 +1,230 @@
+package com.org.api_service.calllog;
+
+import com.org.api_common.constant.CacheKeyConstants;
+import com.org.api_service.mapper.ApiCallLogMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 调用日志分区维护（表需先按 partition_api_call_log.sql 改为 RANGE(TO_DAYS(call_time)) 分区）
+ * 1. 定时检查分区，按 period 提前创建 ahead 个周期的分区（拆分 MAXVALUE 兜底分区）
+ * 2. 上界早于保留期的分区整块 DROP，O(1) 释放空间，不产生大事务和主从延迟
+ * 3. 多节点通过Redis锁保证同一时刻只有一个节点执行DDL；表未分区时只提示不处理
+ * 4. 在独立线程上调度：REORGANIZE PARTITION 会重写兜底分区的数据，不能占用 @Scheduled 共享线程
+ */
+@Slf4j
+@Component
+public class CallLogPartitionManager {
+
+    /** MySQL TO_DAYS('1970-01-01') */
+    private static final long TO_DAYS_EPOCH = 719528;
+    private static final String MAXVALUE = "MAXVALUE";
+    private static final DateTimeFormatter MONTH_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+    private static final DateTimeFormatter DAY_NAME = DateTimeFormatter.ofPattern("'p'yyyyMMdd");
+
+    /** 仅当锁仍是自己持有时删除（比较与删除原子执行） */
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    @Autowired
+    private ApiCallLogMapper apiCallLogMapper;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    /** 是否启用分区维护 */
+    @Value("${api.call-log.partition.enabled:true}")
+    private boolean enabled;
+
+    /** 分区周期：MONTH / DAY */
+    @Value("${api.call-log.partition.period:MONTH}")
+    private String period;
+
+    /** 提前创建的周期数（不含当前周期） */
+    @Value("${api.call-log.partition.ahead:2}")
+    private int ahead;
+
+    /** 保留天数，分区内全部数据早于该天数时删除（<=0 不删除） */
+    @Value("${api.call-log.partition.retention-days:180}")
+    private int retentionDays;
+
+    @Value("${api.call-log.partition.initial-delay-ms:30000}")
+    private long initialDelayMs;
+
+    @Value("${api.call-log.partition.check-interval-ms:3600000}")
+    private long checkIntervalMs;
+
+    private ScheduledExecutorService scheduler;
+
+    private volatile boolean partitioned = true;
+    private volatile long lastCheckAt;
+    private volatile List<String> lastCreated = List.of();
+    private volatile List<String> lastDropped = List.of();
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "call-log-partition");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::scheduledMaintain, initialDelayMs, checkIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    public void scheduledMaintain() {
+        // 每次加锁使用新的值，避免锁过期被其他节点取得后误删
+        String lockValue = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+        Boolean locked;
+        try {
+            locked = redisTemplate.opsForValue()
+                    .setIfAbsent(CacheKeyConstants.CALL_LOG_PARTITION_LOCK, lockValue, 10, TimeUnit.MINUTES);
+        } catch (Exception e) {
+            // 异常不能抛出调度线程，否则后续周期不再执行
+            log.warn("[CallLogPartition] 获取分区维护锁失败，下个周期重试: {}", e.getMessage());
+            return;
+        }
+        if (!Boolean.TRUE.equals(locked)) {
+            return;
+        }
+        try {
+            maintain(LocalDate.now());
+        } catch (Exception e) {
+            log.error("[CallLogPartition] 分区维护失败", e);
+        } finally {
+            try {
+                redisTemplate.execute(UNLOCK_SCRIPT, List.of(CacheKeyConstants.CALL_LOG_PARTITION_LOCK), lockValue);
+            } catch (Exception e) {
+                log.warn("[CallLogPartition] 释放分区维护锁失败，等待锁过期: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 执行一次分区维护
+     * @param today 当前日期
+     */
+    public void maintain(LocalDate today) {
+        lastCheckAt = System.currentTimeMillis();
+        List<Map<String, Object>> rows = apiCallLogMapper.selectPartitions();
+        String futurePartition = null;
+        LocalDate lastUpper = null;
+        List<String> expired = new ArrayList<>();
+        LocalDate cutoff = today.minusDays(retentionDays);
+        for (Map<String, Object> row : rows) {
+            Object name = row.get("PARTITION_NAME");
+            Object description = row.get("PARTITION_DESCRIPTION");
+            if (name == null || description == null) {
+                continue;
+            }
+            if (MAXVALUE.equalsIgnoreCase(description.toString())) {
+                futurePartition = name.toString();
+                continue;
+            }
+            LocalDate upper = LocalDate.ofEpochDay(Long.parseLong(description.toString().trim()) - TO_DAYS_EPOCH);
+            lastUpper = upper;
+            if (retentionDays > 0 && !upper.isAfter(cutoff)) {
+                expired.add(name.toString());
+            }
+        }
+        if (futurePartition == null) {
+            if (partitioned) {
+                log.warn("[CallLogPartition] api_call_log 未按 call_time 分区（或缺少 MAXVALUE 分区），跳过维护，见 partition_api_call_log.sql");
+            }
+            partitioned = false;
+            return;
+        }
+        partitioned = true;
+
+        List<String> created = createAhead(futurePartition, lastUpper, today);
+        // 至少保留一个有上界的分区，避免把全部数据都挤进兜底分区
+        int keep = rows.size() - 1 - expired.size() + created.size();
+        if (!expired.isEmpty() && keep >= 1) {
+            apiCallLogMapper.dropPartitions(String.join(",", expired));
+            lastDropped = expired;
+            log.info("[CallLogPartition] 删除过期分区: {}", expired);
+        }
+    }
+
+    /**
+     * 分区状态
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("partitioned", partitioned);
+        stats.put("period", period);
+        stats.put("ahead", ahead);
+        stats.put("retentionDays", retentionDays);
+        stats.put("lastCheckAt", lastCheckAt);
+        stats.put("lastCreated", lastCreated);
+        stats.put("lastDropped", lastDropped);
+        return stats;
+    }
+
+    private List<String> createAhead(String futurePartition, LocalDate lastUpper, LocalDate today) {
+        LocalDate start = periodStart(today);
+        LocalDate horizon = start;
+        for (int i = 0; i < ahead; i++) {
+            horizon = nextPeriod(horizon);
+        }
+        LocalDate from = lastUpper != null ? lastUpper : start;
+        List<String> names = new ArrayList<>();
+        List<String> definitions = new ArrayList<>();
+        while (!from.isAfter(horizon)) {
+            LocalDate to = nextPeriod(periodStart(from));
+            String name = from.format(isDaily() ? DAY_NAME : MONTH_NAME);
+            names.add(name);
+            definitions.add("PARTITION " + name + " VALUES LESS THAN (TO_DAYS('" + to + "'))");
+            from = to;
+        }
+        if (!definitions.isEmpty()) {
+            apiCallLogMapper.addPartitions(futurePartition, String.join(", ", definitions));
+            lastCreated = names;
+            log.info("[CallLogPartition] 新增分区: {}", names);
+        }
+        return names;
+    }
+
+    private boolean isDaily() {
+        return "DAY".equalsIgnoreCase(period);
+    }
+
+    private LocalDate periodStart(LocalDate date) {
+        return isDaily() ? date : date.withDayOfMonth(1);
+    }
+
+    private LocalDate nextPeriod(LocalDate periodStart) {
+        return periodStart.plus(1, isDaily() ? ChronoUnit.DAYS : ChronoUnit.MONTHS);
+    }
+}
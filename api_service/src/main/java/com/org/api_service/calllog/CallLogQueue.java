@@ -0,0 +1,44 @@
+package com.org.api_service.calllog;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 调用日志传输队列（网关写入、消费者批量取出入库）
+ * 实现：list（LPOP，取出即删除）/ stream（消费组，入库后ACK，宕机未确认的消息可被其他节点认领）
+ * 消息体为 CallLogCodec 编码后的原始字节，读写均不经过字符串序列化
+ */
+public interface CallLogQueue {
+
+    /**
+     * 传输模式名称
+     */
+    String mode();
+
+    /**
+     * 批量写入（一次往返）
+     */
+    void push(List<byte[]> payloads);
+
+    /**
+     * 批量取出
+     * @param maxCount 最多条数
+     * @return 取出的消息，队列为空时返回空列表
+     */
+    List<CallLogMessage> poll(int maxCount);
+
+    /**
+     * 确认消息已处理（入库成功、过滤或移入死信后调用）
+     */
+    void ack(List<CallLogMessage> messages);
+
+    /**
+     * 归还未处理的消息，保证之后能再次取出
+     */
+    void requeue(List<CallLogMessage> messages);
+
+    /**
+     * 队列状态（深度、待确认数量等）
+     */
+    Map<String, Object> stats();
+}
@@ -0,0 +1,48 @@
+package com.org.api_service.calllog;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.util.StringUtils;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+
+/**
+ * 调用日志传输队列配置
+ */
+@Configuration
+public class CallLogQueueConfig {
+
+    /**
+     * 调用日志队列：list（默认，LPOP取出即删除）/ stream（消费组，入库后确认）
+     * 切换模式前需先消费完旧队列中的积压
+     */
+    @Bean
+    public CallLogQueue callLogQueue(StringRedisTemplate redisTemplate,
+                                     @Value("${api.call-log.transport:list}") String transport,
+                                     @Value("${api.call-log.stream.group:api-web}") String group,
+                                     @Value("${api.call-log.stream.consumer-name:}") String consumerName,
+                                     @Value("${api.call-log.stream.max-len:1000000}") long maxLen,
+                                     @Value("${api.call-log.stream.min-idle-ms:60000}") long minIdleMs,
+                                     @Value("${api.call-log.stream.reclaim-interval-ms:10000}") long reclaimIntervalMs) {
+        if (!"stream".equalsIgnoreCase(transport)) {
+            return new RedisListCallLogQueue(redisTemplate);
+        }
+        // 默认以 pid@host 作为消费者名，每个节点一个
+        String name = StringUtils.hasText(consumerName) ? consumerName : ManagementFactory.getRuntimeMXBean().getName();
+        return new RedisStreamCallLogQueue(redisTemplate, group, name, maxLen,
+                Duration.ofMillis(minIdleMs), reclaimIntervalMs);
+    }
+
+    /**
+     * 调用日志编解码：写入格式 json（默认）/ binary；读取两种格式都支持
+     * 切换为 binary 前需确保所有消费节点已升级到支持二进制解码的版本
+     */
+    @Bean
+    public CallLogCodec callLogCodec(@Value("${api.call-log.codec.format:json}") String format,
+                                     @Value("${api.call-log.codec.compress-threshold:1024}") int compressThreshold) {
+        return new CallLogCodec("binary".equalsIgnoreCase(format), compressThreshold);
+    }
+}
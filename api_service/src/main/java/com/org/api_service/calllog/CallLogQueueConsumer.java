@@ -0,0 +1,312 @@
+package com.org.api_service.calllog;
+
+import com.org.api_common.constant.CacheKeyConstants;
+import com.org.api_common.entity.ApiCallLog;
+import com.org.api_service.service.ApiCallLogService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.redis.connection.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 调用日志队列消费者（常驻线程，替代每5秒100条的定时轮询）
+ * 1. 多线程并行，每次 LPOP count 批量弹出（Redis 6.2+），批次大小随积压自适应
+ * 2. 队列空闲时按间隔等待，入库失败时指数退避，避免压垮数据库
+ * 3. 每批独立事务多行INSERT写库：数据类错误二分定位坏行并移入死信队列，其余错误整批归还队列后退避重试
+ * 4. 入库、过滤、移入死信后才确认消息（Stream 模式下未确认的消息可被其他节点认领）
+ */
+@Slf4j
+@Component
+public class CallLogQueueConsumer {
+
+    private static final byte[] DEAD_QUEUE_KEY = CacheKeyConstants.API_METRICS_DEAD_QUEUE.getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private ApiCallLogService apiCallLogService;
+
+    @Autowired
+    private CallLogQueue callLogQueue;
+
+    @Autowired
+    private CallLogCodec callLogCodec;
+
+    /** 是否启动消费线程 */
+    @Value("${api.call-log.consumer.enabled:true}")
+    private boolean enabled;
+
+    /** 并行消费线程数 */
+    @Value("${api.call-log.consumer.threads:2}")
+    private int threads;
+
+    /** 最小批次 */
+    @Value("${api.call-log.consumer.min-batch:50}")
+    private int minBatch;
+
+    /** 最大批次 */
+    @Value("${api.call-log.consumer.max-batch:1000}")
+    private int maxBatch;
+
+    /** 队列为空时的等待间隔（毫秒） */
+    @Value("${api.call-log.consumer.idle-ms:200}")
+    private long idleMs;
+
+    /** 入库失败时的最长退避（毫秒） */
+    @Value("${api.call-log.consumer.max-backoff-ms:5000}")
+    private long maxBackoffMs;
+
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    private final LongAdder consumedCount = new LongAdder();
+    private final LongAdder insertedCount = new LongAdder();
+    private final LongAdder filteredCount = new LongAdder();
+    private final LongAdder deadLetterCount = new LongAdder();
+    private final LongAdder requeuedCount = new LongAdder();
+    private final LongAdder failedBatchCount = new LongAdder();
+    /** 最近一批中最早日志距今的延迟（毫秒） */
+    private volatile long lastLagMs;
+    private volatile int lastBatchSize;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("[CallLogConsumer] 已禁用");
+            return;
+        }
+        running = true;
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(this::runWorker, "call-log-consumer-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        log.info("[CallLogConsumer] 启动: transport={}, threads={}, batch={}~{}",
+                callLogQueue.mode(), threads, minBatch, maxBatch);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        for (Thread worker : workers) {
+            LockSupport.unpark(worker);
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 消费一批日志（消费线程循环调用，也可手动触发）
+     * @param maxSize 本批最多弹出条数
+     * @return 实际弹出条数
+     */
+    public int consumeOnce(int maxSize) {
+        List<CallLogMessage> messages = callLogQueue.poll(maxSize);
+        if (messages.isEmpty()) {
+            return 0;
+        }
+        consumedCount.add(messages.size());
+
+        List<Entry> entries = new ArrayList<>(messages.size());
+        List<CallLogMessage> unparsable = new ArrayList<>();
+        List<CallLogMessage> filtered = new ArrayList<>();
+        long oldestCallTime = Long.MAX_VALUE;
+        for (CallLogMessage message : messages) {
+            ApiCallLog callLog;
+            try {
+                callLog = callLogCodec.decode(message.payload());
+            } catch (Exception e) {
+                log.error("解析调用日志失败: {}", CallLogCodec.describe(message.payload()), e);
+                unparsable.add(message);
+                continue;
+            }
+            if (callLog != null && callLog.getCallTime() != null) {
+                oldestCallTime = Math.min(oldestCallTime, toMillis(callLog.getCallTime()));
+            }
+            // 过滤掉空记录和 apiId 为 null 的记录（避免违反数据库约束）
+            if (callLog == null || callLog.getApiId() == null) {
+                filteredCount.increment();
+                filtered.add(message);
+                continue;
+            }
+            entries.add(new Entry(message, callLog));
+        }
+        if (oldestCallTime != Long.MAX_VALUE) {
+            lastLagMs = System.currentTimeMillis() - oldestCallTime;
+        }
+        callLogQueue.ack(filtered);
+        deadLetter(unparsable);
+        persist(entries);
+        return messages.size();
+    }
+
+    /**
+     * 消费状态（队列深度、延迟、吞吐）
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("running", running);
+        stats.put("threads", workers.size());
+        stats.putAll(callLogQueue.stats());
+        stats.put("deadLetterDepth", redisTemplate.opsForList().size(CacheKeyConstants.API_METRICS_DEAD_QUEUE));
+        stats.put("lagMs", lastLagMs);
+        stats.put("lastBatchSize", lastBatchSize);
+        stats.put("consumedCount", consumedCount.sum());
+        stats.put("insertedCount", insertedCount.sum());
+        stats.put("filteredCount", filteredCount.sum());
+        stats.put("deadLetterCount", deadLetterCount.sum());
+        stats.put("requeuedCount", requeuedCount.sum());
+        stats.put("failedBatchCount", failedBatchCount.sum());
+        return stats;
+    }
+
+    private void runWorker() {
+        int batchSize = minBatch;
+        long backoff = 0;
+        while (running) {
+            try {
+                int popped = consumeOnce(batchSize);
+                lastBatchSize = popped;
+                backoff = 0;
+                if (popped >= batchSize) {
+                    // 积压中：扩大批次，立即继续
+                    batchSize = Math.min(maxBatch, batchSize * 2);
+                    continue;
+                }
+                if (popped < batchSize / 2) {
+                    batchSize = Math.max(minBatch, batchSize / 2);
+                }
+                if (popped == 0) {
+                    pause(idleMs);
+                }
+            } catch (Exception e) {
+                failedBatchCount.increment();
+                backoff = backoff == 0 ? idleMs : Math.min(maxBackoffMs, backoff * 2);
+                log.error("[CallLogConsumer] 消费调用日志失败，{}ms后重试", backoff, e);
+                pause(backoff);
+            }
+        }
+    }
+
+    /**
+     * 分批写库并确认：数据类错误拆半定位坏行；其他错误（数据库不可用等）把未写入部分归还队列并抛出
+     */
+    private void persist(List<Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        Deque<List<Entry>> pending = new ArrayDeque<>();
+        pending.push(entries);
+        while (!pending.isEmpty()) {
+            List<Entry> chunk = pending.pop();
+            try {
+                apiCallLogService.bulkInsert(chunk.stream().map(Entry::callLog).toList());
+                insertedCount.add(chunk.size());
+                callLogQueue.ack(chunk.stream().map(Entry::message).toList());
+            } catch (RuntimeException e) {
+                if (!isDataError(e)) {
+                    List<Entry> rest = new ArrayList<>(chunk);
+                    pending.forEach(rest::addAll);
+                    requeue(rest);
+                    throw e;
+                }
+                if (chunk.size() == 1) {
+                    log.error("调用日志写库失败（数据错误），移入死信队列: {}", CallLogCodec.describe(chunk.get(0).message().payload()), e);
+                    deadLetter(List.of(chunk.get(0).message()));
+                    continue;
+                }
+                int mid = chunk.size() / 2;
+                pending.push(chunk.subList(mid, chunk.size()));
+                pending.push(chunk.subList(0, mid));
+            }
+        }
+    }
+
+    /**
+     * 归还队列（List 模式一次LPUSH放回队首并保持原顺序；Stream 模式不确认，等待重新认领）
+     */
+    private void requeue(List<Entry> entries) {
+        callLogQueue.requeue(entries.stream().map(Entry::message).toList());
+        requeuedCount.add(entries.size());
+        log.warn("调用日志已归还队列，数量: {}", entries.size());
+    }
+
+    /**
+     * 移入死信队列（一次RPUSH）后确认；写死信失败时不确认，Stream 模式下之后会被重新认领
+     */
+    private void deadLetter(List<CallLogMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        List<byte[]> raws = new ArrayList<>(messages.size());
+        for (CallLogMessage message : messages) {
+            if (message.payload() != null) {
+                raws.add(message.payload());
+            }
+        }
+        try {
+            if (!raws.isEmpty()) {
+                redisTemplate.execute((RedisCallback<Long>) connection ->
+                        connection.listCommands().rPush(DEAD_QUEUE_KEY, raws.toArray(new byte[0][])));
+            }
+            deadLetterCount.add(messages.size());
+            callLogQueue.ack(messages);
+        } catch (Exception e) {
+            log.error("写入死信队列失败，{}条调用日志未确认", messages.size(), e);
+        }
+    }
+
+    /**
+     * 是否为数据本身导致的错误（约束冲突、字段超长等，重试无意义）
+     */
+    private static boolean isDataError(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof DataIntegrityViolationException) {
+                return true;
+            }
+            if (t instanceof SQLException sqlException) {
+                String state = sqlException.getSQLState();
+                return state != null && (state.startsWith("22") || state.startsWith("23"));
+            }
+        }
+        return false;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private void pause(long millis) {
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    private record Entry(CallLogMessage message, ApiCallLog callLog) {
+    }
+}
@@ -0,0 +1,92 @@
+package com.org.api_service.calllog;
+
+import com.org.api_common.constant.CacheKeyConstants;
+import org.springframework.data.redis.connection.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基于Redis List的调用日志队列
+ * RPUSH 写入、LPOP count 取出（Redis 6.2+），取出即删除，无需确认；
+ * 消费节点在入库前宕机会丢失已取出的日志
+ */
+public class RedisListCallLogQueue implements CallLogQueue {
+
+    private static final byte[] QUEUE_KEY = CacheKeyConstants.API_METRICS_QUEUE.getBytes(StandardCharsets.UTF_8);
+    private static final long QUEUE_TTL_SECONDS = Duration.ofDays(7).toSeconds();
+
+    private final StringRedisTemplate redisTemplate;
+
+    public RedisListCallLogQueue(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public String mode() {
+        return "list";
+    }
+
+    @Override
+    public void push(List<byte[]> payloads) {
+        if (payloads.isEmpty()) {
+            return;
+        }
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            Long size = connection.listCommands().rPush(QUEUE_KEY, payloads.toArray(new byte[0][]));
+            // 本批次即队列全部内容，说明队列刚创建，设置过期时间
+            if (size != null && size == payloads.size()) {
+                connection.keyCommands().expire(QUEUE_KEY, QUEUE_TTL_SECONDS);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public List<CallLogMessage> poll(int maxCount) {
+        List<byte[]> rawList = redisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                connection.listCommands().lPop(QUEUE_KEY, maxCount));
+        if (rawList == null || rawList.isEmpty()) {
+            return List.of();
+        }
+        List<CallLogMessage> messages = new ArrayList<>(rawList.size());
+        for (byte[] raw : rawList) {
+            messages.add(new CallLogMessage(null, raw));
+        }
+        return messages;
+    }
+
+    @Override
+    public void ack(List<CallLogMessage> messages) {
+        // LPOP 已删除，无需确认
+    }
+
+    /**
+     * 放回队首（保持原顺序，一次LPUSH）
+     */
+    @Override
+    public void requeue(List<CallLogMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        byte[][] raws = new byte[messages.size()][];
+        for (int i = 0; i < raws.length; i++) {
+            raws[raws.length - 1 - i] = messages.get(i).payload();
+        }
+        redisTemplate.execute((RedisCallback<Long>) connection -> connection.listCommands().lPush(QUEUE_KEY, raws));
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mode", mode());
+        stats.put("queueDepth", redisTemplate.execute((RedisCallback<Long>) connection ->
+                connection.listCommands().lLen(QUEUE_KEY)));
+        return stats;
+    }
+}
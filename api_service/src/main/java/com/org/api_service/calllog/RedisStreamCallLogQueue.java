@@ -0,0 +1,268 @@
+package com.org.api_service.calllog;
+
+import com.org.api_common.constant.CacheKeyConstants;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.RedisCallback;
+import org.springframework.data.redis.connection.RedisStreamCommands.XAddOptions;
+import org.springframework.data.redis.connection.RedisStreamCommands.XClaimOptions;
+import org.springframework.data.redis.connection.stream.ByteRecord;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.PendingMessagesSummary;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基于Redis Stream的调用日志队列（消费组模式）
+ * 1. 一批日志在一次管道中 XADD，MAXLEN ~ 近似裁剪限制内存占用
+ * 2. 同一部署的所有节点加入同一消费组，XREADGROUP 各取各的，不再争抢同一个List
+ * 3. 入库提交后才 XACK；节点宕机或入库失败的消息留在待确认列表，
+ *    空闲超过 min-idle 后由任一节点 XCLAIM 认领重新处理
+ */
+@Slf4j
+public class RedisStreamCallLogQueue implements CallLogQueue {
+
+    private static final String STREAM_KEY = CacheKeyConstants.API_METRICS_STREAM;
+    private static final byte[] STREAM_KEY_BYTES = STREAM_KEY.getBytes(StandardCharsets.UTF_8);
+    /** 记录中存放日志内容的字段名 */
+    private static final byte[] PAYLOAD_FIELD_BYTES = "v".getBytes(StandardCharsets.UTF_8);
+
+    private final StringRedisTemplate redisTemplate;
+    private final String group;
+    private final Consumer consumer;
+    private final long maxLen;
+    private final Duration minIdle;
+    private final long reclaimIntervalMs;
+
+    private volatile boolean groupReady;
+    private final AtomicLong nextReclaimAt = new AtomicLong();
+
+    private final LongAdder reclaimedCount = new LongAdder();
+    private final LongAdder trimmedPendingCount = new LongAdder();
+
+    public RedisStreamCallLogQueue(StringRedisTemplate redisTemplate, String group, String consumerName,
+                                   long maxLen, Duration minIdle, long reclaimIntervalMs) {
+        this.redisTemplate = redisTemplate;
+        this.group = group;
+        this.consumer = Consumer.from(group, consumerName);
+        this.maxLen = maxLen;
+        this.minIdle = minIdle;
+        this.reclaimIntervalMs = reclaimIntervalMs;
+    }
+
+    @Override
+    public String mode() {
+        return "stream";
+    }
+
+    @Override
+    public void push(List<byte[]> payloads) {
+        if (payloads.isEmpty()) {
+            return;
+        }
+        XAddOptions options = maxLen > 0
+                ? XAddOptions.maxlen(maxLen).approximateTrimming(true)
+                : XAddOptions.none();
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (byte[] payload : payloads) {
+                MapRecord<byte[], byte[], byte[]> record = MapRecord.create(STREAM_KEY_BYTES,
+                        Map.of(PAYLOAD_FIELD_BYTES, payload));
+                connection.streamCommands().xAdd(record, options);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 到达认领周期时优先认领超时未确认的消息，否则读取新消息
+     */
+    @Override
+    public List<CallLogMessage> poll(int maxCount) {
+        ensureGroup();
+        long now = System.currentTimeMillis();
+        long reclaimAt = nextReclaimAt.get();
+        if (now >= reclaimAt && nextReclaimAt.compareAndSet(reclaimAt, now + reclaimIntervalMs)) {
+            List<CallLogMessage> reclaimed = reclaim(maxCount);
+            if (!reclaimed.isEmpty()) {
+                // 可能还有更多，下次继续认领
+                nextReclaimAt.set(0);
+                return reclaimed;
+            }
+        }
+        List<ByteRecord> records;
+        try {
+            records = redisTemplate.execute((RedisCallback<List<ByteRecord>>) connection ->
+                    connection.streamCommands().xReadGroup(consumer,
+                            StreamReadOptions.empty().count(maxCount),
+                            StreamOffset.create(STREAM_KEY_BYTES, ReadOffset.lastConsumed())));
+        } catch (RuntimeException e) {
+            if (hasMessage(e, "NOGROUP")) {
+                // Stream 被删除后消费组随之消失，下次重新创建
+                groupReady = false;
+                return List.of();
+            }
+            throw e;
+        }
+        return toMessages(records);
+    }
+
+    @Override
+    public void ack(List<CallLogMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        String[] ids = new String[messages.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = messages.get(i).id();
+        }
+        redisTemplate.opsForStream().acknowledge(STREAM_KEY, group, ids);
+    }
+
+    /**
+     * 不确认即视为归还：消息留在待确认列表，空闲超过 min-idle 后被重新认领
+     */
+    @Override
+    public void requeue(List<CallLogMessage> messages) {
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mode", mode());
+        stats.put("group", group);
+        stats.put("consumer", consumer.getName());
+        stats.put("maxLen", maxLen);
+        stats.put("streamLength", redisTemplate.opsForStream().size(STREAM_KEY));
+        try {
+            PendingMessagesSummary summary = redisTemplate.opsForStream().pending(STREAM_KEY, group);
+            stats.put("pendingCount", summary == null ? 0 : summary.getTotalPendingMessages());
+        } catch (RuntimeException e) {
+            stats.put("pendingCount", 0);
+        }
+        stats.put("reclaimedCount", reclaimedCount.sum());
+        stats.put("trimmedPendingCount", trimmedPendingCount.sum());
+        return stats;
+    }
+
+    /**
+     * 认领空闲超过 min-idle 的待确认消息（XPENDING + XCLAIM，XCLAIM 会再次校验空闲时间，多节点并发认领不会重复）
+     * 裁剪掉的消息只在 XRANGE 确认不存在后才确认，不根据 XCLAIM 返回结果推断
+     */
+    private List<CallLogMessage> reclaim(int maxCount) {
+        PendingMessages pending = redisTemplate.opsForStream().pending(STREAM_KEY, group, Range.unbounded(), maxCount);
+        if (pending == null || pending.isEmpty()) {
+            return List.of();
+        }
+        List<RecordId> idleIds = new ArrayList<>();
+        for (PendingMessage message : pending) {
+            if (message.getElapsedTimeSinceLastDelivery().compareTo(minIdle) >= 0) {
+                idleIds.add(message.getId());
+            }
+        }
+        if (idleIds.isEmpty()) {
+            return List.of();
+        }
+        XClaimOptions claimOptions = XClaimOptions.minIdle(minIdle).ids(idleIds.toArray(new RecordId[0]));
+        List<ByteRecord> records = redisTemplate.execute((RedisCallback<List<ByteRecord>>) connection ->
+                connection.streamCommands().xClaim(STREAM_KEY_BYTES, group, consumer.getName(), claimOptions));
+        List<CallLogMessage> messages = toMessages(records);
+        reclaimedCount.add(messages.size());
+
+        // 未认领到的ID可能已被 MAXLEN 裁剪，也可能刚被其他节点认领（空闲时间被重置）；
+        // 只有逐个 XRANGE 确认已不在Stream中的才确认掉，其余留给持有者处理
+        if (messages.size() < idleIds.size()) {
+            Set<String> claimed = new HashSet<>();
+            for (CallLogMessage message : messages) {
+                claimed.add(message.id());
+            }
+            List<String> trimmed = new ArrayList<>();
+            for (RecordId id : idleIds) {
+                if (!claimed.contains(id.getValue()) && !existsInStream(id.getValue())) {
+                    trimmed.add(id.getValue());
+                }
+            }
+            if (!trimmed.isEmpty()) {
+                redisTemplate.opsForStream().acknowledge(STREAM_KEY, group, trimmed.toArray(new String[0]));
+                trimmedPendingCount.add(trimmed.size());
+                log.warn("[CallLogStream] {}条待确认日志已被裁剪，无法重新处理", trimmed.size());
+            }
+        }
+        if (!messages.isEmpty()) {
+            log.warn("[CallLogStream] 认领超时未确认的调用日志: {}", messages.size());
+        }
+        return messages;
+    }
+
+    /**
+     * 消息是否仍在Stream中（XRANGE id id）
+     */
+    private boolean existsInStream(String id) {
+        List<MapRecord<String, Object, Object>> records =
+                redisTemplate.opsForStream().range(STREAM_KEY, Range.closed(id, id));
+        return records != null && !records.isEmpty();
+    }
+
+    private List<CallLogMessage> toMessages(List<ByteRecord> records) {
+        if (records == null || records.isEmpty()) {
+            return List.of();
+        }
+        List<CallLogMessage> messages = new ArrayList<>(records.size());
+        for (ByteRecord record : records) {
+            byte[] payload = null;
+            for (Map.Entry<byte[], byte[]> field : record.getValue().entrySet()) {
+                if (Arrays.equals(field.getKey(), PAYLOAD_FIELD_BYTES)) {
+                    payload = field.getValue();
+                    break;
+                }
+            }
+            messages.add(new CallLogMessage(record.getId().getValue(), payload));
+        }
+        return messages;
+    }
+
+    /**
+     * 创建消费组（Stream不存在时一并创建，从头消费；已存在则忽略）
+     */
+    private void ensureGroup() {
+        if (groupReady) {
+            return;
+        }
+        try {
+            redisTemplate.execute((RedisCallback<String>) connection ->
+                    connection.streamCommands().xGroupCreate(STREAM_KEY_BYTES, group, ReadOffset.from("0"), true));
+            log.info("[CallLogStream] 创建消费组: stream={}, group={}", STREAM_KEY, group);
+        } catch (RuntimeException e) {
+            if (!hasMessage(e, "BUSYGROUP")) {
+                throw e;
+            }
+        }
+        groupReady = true;
+    }
+
+    private static boolean hasMessage(Throwable e, String keyword) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t.getMessage() != null && t.getMessage().contains(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,13 +1,70 @@
 package com.org.api_service.mapper;
 
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
 import com.org.api_common.entity.ApiCallLog;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
+
+import java.util.List;
+import java.util.Map;
 
 /**
  * API调用日志Mapper
  */
 @Mapper
 public interface ApiCallLogMapper extends BaseMapper<ApiCallLog> {
-    // 基础CRUD由BaseMapper提供
-}
\ No newline at end of file
+
+    /**
+     * 多行批量插入：一条 INSERT ... VALUES (...),(...) 写入整批，一次网络往返
+     * 单条语句的行数由调用方控制（受 max_allowed_packet 限制），不回填自增ID
+     * @param list 调用日志
+     * @return 插入行数
+     */
+    int insertBatchValues(@Param("list") List<ApiCallLog> list);
+
+    /**
+     * 流式查询：fetchSize=Integer.MIN_VALUE 让MySQL驱动逐行读取结果集，内存占用与结果行数无关
+     * 必须在事务（同一连接）内遍历，遍历期间该连接不能执行其他语句
+     * @param wrapper 过滤与排序条件
+     */
+    @Select("SELECT * FROM api_call_log ${ew.customSqlSegment}")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    Cursor<ApiCallLog> selectCursor(@Param(Constants.WRAPPER) Wrapper<ApiCallLog> wrapper);
+
+    /**
+     * 当前连接的服务端线程ID（流式查询中途放弃时用于 KILL QUERY）
+     */
+    @Select("SELECT CONNECTION_ID()")
+    long selectConnectionId();
+
+    /**
+     * 查询调用日志表的分区（未分区时返回一行，PARTITION_NAME 为 null）
+     * @return PARTITION_NAME、PARTITION_DESCRIPTION（上界 TO_DAYS 值或 MAXVALUE），按分区顺序
+     */
+    @Select("SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM information_schema.PARTITIONS " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'api_call_log' ORDER BY PARTITION_ORDINAL_POSITION")
+    List<Map<String, Object>> selectPartitions();
+
+    /**
+     * 拆分兜底分区，在其前面新增分区
+     * @param futurePartition 兜底分区名（VALUES LESS THAN MAXVALUE）
+     * @param definitions 新分区定义，如 PARTITION p202611 VALUES LESS THAN (TO_DAYS('2026-12-01'))，由程序生成
+     */
+    @Update("ALTER TABLE api_call_log REORGANIZE PARTITION ${futurePartition} INTO " +
+            "(${definitions}, PARTITION ${futurePartition} VALUES LESS THAN MAXVALUE)")
+    int addPartitions(@Param("futurePartition") String futurePartition, @Param("definitions") String definitions);
+
+    /**
+     * 删除分区（整块释放，不逐行删除）
+     * @param names 逗号分隔的分区名，由程序生成
+     */
+    @Update("ALTER TABLE api_call_log DROP PARTITION ${names}")
+    int dropPartitions(@Param("names") String names);
+}
@@ -1,15 +1,41 @@
 package com.org.api_service.service;
 
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.org.api_common.entity.ApiCallLog;
+import com.org.api_common.vo.CallLogScrollVO;
+
+import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * API调用日志服务接口
+ * Redis队列的消费由 CallLogQueueConsumer 负责
  */
 public interface ApiCallLogService extends IService<ApiCallLog> {
 
     /**
-     * 定时任务：批量消费Redis队列中的日志并保存到数据库
+     * 批量写入调用日志（按 api.call-log.bulk-insert.chunk-size 分块，每块一条多行INSERT，同一事务）
+     * @param logs 调用日志
+     * @return 插入行数
+     */
+    int bulkInsert(List<ApiCallLog> logs);
+
+    /**
+     * 游标分页（按 call_time、id 倒序 seek，不使用 OFFSET，翻到多深都只读一页的行）
+     * @param wrapper 过滤条件（不含排序）
+     * @param cursor 上一页返回的 nextCursor，首页传null
+     * @param size 每页条数
+     * @param withTotal 是否统计总条数（需额外一次 COUNT）
+     */
+    CallLogScrollVO scroll(QueryWrapper<ApiCallLog> wrapper, String cursor, int size, boolean withTotal);
+
+    /**
+     * 流式遍历符合条件的调用日志（只读事务内使用MyBatis游标，逐行回调）
+     * 回调抛出异常时先终止服务端查询（KILL QUERY，避免驱动关闭流式结果集时读完剩余行），再关闭游标
+     * @param wrapper 过滤与排序条件
+     * @param consumer 每行回调
+     * @return 遍历的行数
      */
-    void consumeCallLogQueue();
-}
\ No newline at end of file
+    long forEach(QueryWrapper<ApiCallLog> wrapper, Consumer<ApiCallLog> consumer);
+}
@@ -1,118 +1,134 @@
 package com.org.api_service.service.serviceImpl;
 
-import com.alibaba.fastjson2.JSON;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.org.api_common.constant.ErrorCodeEnum;
+import com.org.api_common.exception.BusinessException;
+import com.org.api_common.vo.CallLogScrollVO;
 import com.org.api_service.mapper.ApiCallLogMapper;
 import com.org.api_service.service.ApiCallLogService;
-import com.org.api_common.constant.CacheKeyConstants;
 import com.org.api_common.entity.ApiCallLog;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 /**
  * API调用日志服务实现
- * 负责从Redis队列消费日志并批量写入数据库
+ * Redis队列消费见 CallLogQueueConsumer
  */
 @Slf4j
 @Service
 public class ApiCallLogServiceImpl extends ServiceImpl<ApiCallLogMapper, ApiCallLog>
         implements ApiCallLogService {
 
-    @Autowired
-    private StringRedisTemplate redisTemplate;
+    /** 单条多行INSERT最多行数（每行含请求参数和响应结果，过大可能超过 max_allowed_packet） */
+    @Value("${api.call-log.bulk-insert.chunk-size:500}")
+    private int chunkSize;
 
-    // 最大重试次数
-    private static final int MAX_RETRY_COUNT = 3;
-    // 每次批量处理的最大数量
-    private static final int BATCH_SIZE = 100;
+    @Autowired
+    private DataSource dataSource;
 
-    /**
-     * 定时任务：每5秒批量消费Redis队列中的日志
-     */
-    @Scheduled(fixedDelay = 5000)
+    @Override
     @Transactional(rollbackFor = Exception.class)
-    public void consumeCallLogQueue() {
-        String queueKey = CacheKeyConstants.API_METRICS_QUEUE;
-        List<ApiCallLog> logList = new ArrayList<>();
+    public int bulkInsert(List<ApiCallLog> logs) {
+        int size = Math.max(1, chunkSize);
+        int inserted = 0;
+        for (int from = 0; from < logs.size(); from += size) {
+            inserted += baseMapper.insertBatchValues(logs.subList(from, Math.min(logs.size(), from + size)));
+        }
+        return inserted;
+    }
 
-        // 批量从队列左侧弹出（FIFO）
-        for (int i = 0; i < BATCH_SIZE; i++) {
-            String logJson = redisTemplate.opsForList().leftPop(queueKey);
-            if (logJson == null) {
-                break; // 队列为空
-            }
+    @Override
+    public CallLogScrollVO scroll(QueryWrapper<ApiCallLog> wrapper, String cursor, int size, boolean withTotal) {
+        CallLogScrollVO vo = new CallLogScrollVO();
+        if (withTotal) {
+            vo.setTotal(count(wrapper));
+        }
+        if (cursor != null && !cursor.isEmpty()) {
+            Cursor position = decodeCursor(cursor);
+            // (call_time, id) < (t, id)，展开为OR便于走 (…, call_time, id) 索引范围扫描
+            wrapper.and(w -> w.lt("call_time", position.callTime())
+                    .or(o -> o.eq("call_time", position.callTime()).lt("id", position.id())));
+        }
+        wrapper.orderByDesc("call_time").orderByDesc("id").last("LIMIT " + (size + 1));
+        List<ApiCallLog> rows = list(wrapper);
 
-            try {
-                ApiCallLog callLog = JSON.parseObject(logJson, ApiCallLog.class);
-                logList.add(callLog);
-            } catch (Exception e) {
-                log.error("解析调用日志失败: {}", logJson, e);
-            }
+        boolean hasMore = rows.size() > size;
+        List<ApiCallLog> records = hasMore ? rows.subList(0, size) : rows;
+        vo.setRecords(records);
+        vo.setHasMore(hasMore);
+        if (hasMore) {
+            ApiCallLog last = records.get(records.size() - 1);
+            vo.setNextCursor(encodeCursor(last.getCallTime(), last.getId()));
         }
+        return vo;
+    }
 
-        // 批量插入数据库
-        if (!logList.isEmpty()) {
-            // 过滤掉 apiId 为 null 的记录（避免违反数据库约束）
-            List<ApiCallLog> validLogList = logList.stream()
-                    .filter(callLog -> {
-                        if (callLog.getApiId() == null) {
-                            log.debug("过滤掉 apiId 为 null 的调用日志，API可能未在数据库中注册: userId={}, ip={}, status={}", 
-                                    callLog.getUserId(), callLog.getIp(), callLog.getStatus());
-                            return false;
-                        }
-                        return true;
-                    })
-                    .collect(Collectors.toList());
-            
-            int filteredCount = logList.size() - validLogList.size();
-            if (filteredCount > 0) {
-                log.warn("本次过滤掉 {} 条 apiId 为 null 的调用日志（API可能未在数据库中注册）", filteredCount);
-            }
-            
-            if (!validLogList.isEmpty()) {
-                try {
-                    this.saveBatch(validLogList);
-                    log.debug("批量保存调用日志成功，数量: {}", validLogList.size());
-                } catch (Exception e) {
-                    log.error("批量保存调用日志失败，数量: {}", validLogList.size(), e);
-                    // 失败后重新放回队列（避免数据丢失）
-                    retrySaveToQueue(queueKey, validLogList, 0);
+    @Override
+    @Transactional(readOnly = true)
+    public long forEach(QueryWrapper<ApiCallLog> wrapper, Consumer<ApiCallLog> consumer) {
+        long count = 0;
+        long connectionId = baseMapper.selectConnectionId();
+        try (Cursor<ApiCallLog> cursor = baseMapper.selectCursor(wrapper)) {
+            try {
+                for (ApiCallLog callLog : cursor) {
+                    consumer.accept(callLog);
+                    count++;
                 }
+            } catch (RuntimeException e) {
+                // 关闭流式结果集时驱动会读完剩余行，先终止服务端查询，关闭游标才能立即返回
+                killQuery(connectionId);
+                throw e;
             }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+        return count;
     }
 
     /**
-     * 重试保存到队列
+     * 用另一个连接终止指定连接上正在执行的语句（连接本身保留，事务随后回滚）
      */
-    private void retrySaveToQueue(String queueKey, List<ApiCallLog> logList, int retryCount) {
-        if (retryCount >= MAX_RETRY_COUNT) {
-            log.error("重试次数已达上限，丢弃日志，数量: {}", logList.size());
-            return;
+    private void killQuery(long connectionId) {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("KILL QUERY " + connectionId);
+        } catch (SQLException e) {
+            log.warn("[CallLog] 终止流式查询失败，关闭游标时将读完剩余结果: connectionId={}, {}", connectionId, e.getMessage());
         }
+    }
+
+    private static String encodeCursor(LocalDateTime callTime, Long id) {
+        String raw = callTime + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
 
+    private static Cursor decodeCursor(String cursor) {
         try {
-            for (ApiCallLog log : logList) {
-                try {
-                    String logJson = JSON.toJSONString(log);
-                    redisTemplate.opsForList().rightPush(queueKey, logJson);
-                } catch (Exception e) {
-                    ApiCallLogServiceImpl.log.error("重新放回队列失败", e);
-                }
-            }
-            log.warn("日志已重新放回队列，数量: {}, 重试次数: {}", logList.size(), retryCount + 1);
-        } catch (Exception e) {
-            log.error("重试保存到队列失败，重试次数: {}", retryCount, e);
-            // 递归重试
-            retrySaveToQueue(queueKey, logList, retryCount + 1);
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            return new Cursor(LocalDateTime.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new BusinessException(ErrorCodeEnum.PARAM_ERROR, "游标无效");
         }
     }
-}
\ No newline at end of file
+
+    private record Cursor(LocalDateTime callTime, long id) {
+    }
+}
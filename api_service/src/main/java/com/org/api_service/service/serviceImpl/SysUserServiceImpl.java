@@ -16,6 +16,7 @@ import com.org.api_common.util.NonceUtil;
 import com.org.api_common.util.SecretKeyUtil;
 import com.org.api_common.util.SignUtil;
 import com.org.api_common.vo.*;
+import com.org.api_service.cache.AkCredentialCache;
 import com.org.api_service.mapper.SysUserMapper;
 import com.org.api_service.service.AkOperateLogService;
 import com.org.api_service.service.SysUserService;
@@ -50,6 +51,9 @@ public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> impl
     @Autowired
     private AkOperateLogService  akOperateLogService;
 
+    @Autowired
+    private AkCredentialCache akCredentialCache;
+
     // 新增方法：生成新AK/SK
     @Override
     public Map<String, String> generateNewAkSk(String accessKey) {
@@ -72,6 +76,7 @@ public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> impl
         sysUser.setAccessKey(newAk);
         sysUser.setSecretKey(newSk);
         this.updateById(sysUser);
+        akCredentialCache.invalidate(accessKey);
 
         // 5. 返回新AK/SK（SK仅返回一次）
         Map<String, String> result = new HashMap<>();
@@ -94,8 +99,13 @@ public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> impl
         if (!StringUtils.hasText(accessKey)) {
             throw new BusinessException(ErrorCodeEnum.PARAM_ERROR, "AK不能为空");
         }
-        // 2. 查询有效用户
-        SysUser user = baseMapper.selectByAccessKey(accessKey);
+        // 2. 查询有效用户（优先本地缓存，未命中再查库并回填）
+        SysUser user = akCredentialCache.get(accessKey);
+        if (user == null) {
+            long stamp = akCredentialCache.currentStamp();
+            user = baseMapper.selectByAccessKey(accessKey);
+            akCredentialCache.put(accessKey, user, stamp);
+        }
         if (user == null) {
             throw new BusinessException(ErrorCodeEnum.NOT_FOUND, "AK不存在或用户已禁用");
         }
@@ -111,12 +121,6 @@ public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> impl
 
     @Override
     public boolean verifyAkSk(String accessKey, String sign, Long timestamp, String nonce) {
-        // ===== 新增调试日志（仅打印，不改动原有逻辑）=====
-        System.out.println("===== 签名校验调试日志 =====");
-        System.out.println("1. 入参：accessKey=" + accessKey + ", sign=" + sign + ", timestamp=" + timestamp + ", nonce=" + nonce);
-        // ===== 原有代码（一行未改）=====
-        System.out.println("服务器当前时间戳（毫秒）：" + System.currentTimeMillis());
-        System.out.println("你传的时间戳：" + timestamp);
         // 1. 基础参数校验
         if (!StringUtils.hasText(sign) || timestamp == null || !StringUtils.hasText(nonce)) {
             throw new BusinessException(ErrorCodeEnum.PARAM_ERROR, "签名/时间戳/Nonce不能为空");
@@ -132,14 +136,8 @@ public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> impl
         // 4. 查询用户SK
         SysUser user = this.getByAccessKey(accessKey);
 
-        // ===== 新增调试日志（仅打印，不改动原有逻辑）=====
-        System.out.println("2. 查询到的用户SK：" + user.getSecretKey());
-        // 5. 签名校验（核心）
-        Map<String, Object> params = new HashMap<>();
-        params.put("accessKey", accessKey);
-        params.put("timestamp", timestamp);
-        params.put("nonce", nonce);
-        boolean signValid = SignUtil.verifySign(params, user.getSecretKey(), sign);
+        // 5. 签名校验（核心：accessKey/nonce/timestamp三字段，按字节拼接+线程内缓存Mac）
+        boolean signValid = SignUtil.verifySign(accessKey, timestamp, nonce, user.getSecretKey(), sign);
         if (!signValid) {
             throw new BusinessException(ErrorCodeEnum.SIGN_ERROR, "签名验证失败");
         }
@@ -178,6 +176,7 @@ public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> impl
         if (!updateResult) {
             throw new BusinessException(ErrorCodeEnum.SYSTEM_ERROR, "修改AK状态失败");
         }
+        akCredentialCache.invalidate(accessKey);
         return true;
     }
 
@@ -275,6 +274,7 @@ public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> impl
             }
 
             this.updateById(sysUser);
+            akCredentialCache.invalidate(targetAk);
 
         } else {
             LocalDateTime userExpireTime = sysUser.getExpireTime();
@@ -319,6 +319,7 @@ public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> impl
             // 设置权限并更新（注释：仅执行一次更新，无冗余）
             sysUser.setPermissionType(permissionType);
             this.updateById(sysUser);
+            akCredentialCache.invalidate(targetAk);
         }
 
         // 3. 封装返回VO（注释：转换编码为中文描述，前端无需二次处理）
@@ -350,6 +351,7 @@ public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> impl
         // 4. 更新数据库（仅更新secret_key字段）
         sysUser.setSecretKey(newSecretKey);
         this.updateById(sysUser);
+        akCredentialCache.invalidate(targetAk);
 
         // 5. 记录重置日志（便于审计）
         AkOperateLog log = new AkOperateLog();
@@ -398,6 +400,7 @@ public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> impl
             Integer targetStatus = operateType == 3 ? SignConstants.AK_STATUS_DISABLE : SignConstants.AK_STATUS_ENABLE;
             sysUser.setStatus(targetStatus);
             this.updateById(sysUser);
+            akCredentialCache.invalidate(targetAk);
             successCount++;
 
             // 日志记录：operateType直接用2/3（匹配枚举ENABLE_AK/DISABLE_AK，数据库operate_type=2/3）
@@ -597,6 +600,7 @@ public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> impl
         if (!updateSuccess) {
             throw new BusinessException(ErrorCodeEnum.SYSTEM_ERROR, "AK逻辑删除失败！");
         }
+        akCredentialCache.invalidate(targetAk);
 
         // 4. 记录删除日志（operateType=4，建议新增枚举：DELETE_AK=4；暂用固定值4）
         AkOperateLog log = new AkOperateLog();
@@ -0,0 +1,208 @@
+package com.org.api_service.calllog;
+
+import com.org.api_common.entity.ApiCallLog;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 调用日志编解码测试：往返、压缩、格式识别、v1 兼容、损坏数据拒绝
+ */
+public class CallLogCodecTest {
+
+    private static final int THRESHOLD = 256;
+
+    private final CallLogCodec binary = new CallLogCodec(true, THRESHOLD);
+    private final CallLogCodec json = new CallLogCodec(false, THRESHOLD);
+
+    @Test
+    public void roundTripAllFieldsNull() {
+        ApiCallLog empty = new ApiCallLog();
+        byte[] payload = binary.encode(empty);
+        // magic + version + presence(0)
+        assertEquals(3, payload.length);
+        assertEquals(empty, binary.decode(payload));
+    }
+
+    @Test
+    public void roundTripAllFieldsSet() {
+        ApiCallLog callLog = fullLog("{\"city\":\"北京\"}", "{\"code\":200}");
+        assertEquals(callLog, binary.decode(binary.encode(callLog)));
+    }
+
+    @Test
+    public void roundTripNegativeAndExtremeValues() {
+        ApiCallLog callLog = new ApiCallLog();
+        callLog.setId(Long.MAX_VALUE);
+        callLog.setUserId(Long.MIN_VALUE);
+        callLog.setApiId(-1L);
+        callLog.setStatus(Integer.MIN_VALUE);
+        callLog.setCostTime(0L);
+        callLog.setCallTime(LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_999));
+        callLog.setErrorMsg("");
+        assertEquals(callLog, binary.decode(binary.encode(callLog)));
+    }
+
+    @Test
+    public void compressesLargeTextAboveThreshold() {
+        String large = "{\"data\":\"" + "重复内容abc".repeat(500) + "\"}";
+        ApiCallLog callLog = fullLog(large, large);
+        byte[] payload = binary.encode(callLog);
+        int rawSize = large.getBytes(StandardCharsets.UTF_8).length;
+        assertTrue(payload.length < rawSize, "大文本应被压缩: " + payload.length);
+        assertEquals(callLog, binary.decode(payload));
+    }
+
+    @Test
+    public void keepsIncompressibleTextRaw() {
+        // 低于阈值不压缩；高于阈值但压缩无收益时也保留原文
+        StringBuilder random = new StringBuilder();
+        Random rnd = new Random(42);
+        for (int i = 0; i < THRESHOLD * 2; i++) {
+            random.append((char) ('!' + rnd.nextInt(90)));
+        }
+        ApiCallLog callLog = fullLog("short", random.toString());
+        assertEquals(callLog, binary.decode(binary.encode(callLog)));
+    }
+
+    @Test
+    public void detectsFormatByFirstByte() {
+        ApiCallLog callLog = fullLog("{}", "{}");
+        callLog.setCallTime(LocalDateTime.of(2026, 10, 17, 9, 30, 15));
+        byte[] text = json.encode(callLog);
+        byte[] bin = binary.encode(callLog);
+        assertEquals('{', text[0]);
+        assertEquals(CallLogCodec.MAGIC, bin[0]);
+        // 任一编解码器都能读两种格式
+        assertEquals(callLog, binary.decode(text));
+        assertEquals(callLog, json.decode(bin));
+        assertEquals("binary(" + bin.length + " bytes)", CallLogCodec.describe(bin));
+        assertEquals(new String(text, StandardCharsets.UTF_8), CallLogCodec.describe(text));
+    }
+
+    @Test
+    public void emptyPayloadDecodesToNull() {
+        assertNull(binary.decode(null));
+        assertNull(binary.decode(new byte[0]));
+    }
+
+    @Test
+    public void decodesV1PayloadWithoutApiName() {
+        ApiCallLog callLog = fullLog("{}", "{}");
+        callLog.setApiName(null);
+        byte[] payload = binary.encode(callLog);
+        // v1 与 v2 的区别只有末尾的 apiName，去掉 apiName 后改写版本号即为 v1 数据
+        payload[1] = 1;
+        assertEquals(callLog, binary.decode(payload));
+    }
+
+    @Test
+    public void rejectsV1PayloadWithApiName() {
+        byte[] payload = binary.encode(fullLog("{}", "{}"));
+        payload[1] = 1;
+        assertThrows(IllegalArgumentException.class, () -> binary.decode(payload));
+    }
+
+    @Test
+    public void rejectsUnknownVersion() {
+        byte[] payload = binary.encode(fullLog("{}", "{}"));
+        payload[1] = (byte) (CallLogCodec.VERSION + 1);
+        assertThrows(IllegalArgumentException.class, () -> binary.decode(payload));
+        payload[1] = 0;
+        assertThrows(IllegalArgumentException.class, () -> binary.decode(payload));
+    }
+
+    @Test
+    public void rejectsEveryTruncation() {
+        String large = "{\"data\":\"" + "x".repeat(THRESHOLD * 4) + "\"}";
+        byte[] payload = binary.encode(fullLog(large, "{}"));
+        for (int length = 1; length < payload.length; length++) {
+            byte[] truncated = Arrays.copyOf(payload, length);
+            assertThrows(IllegalArgumentException.class, () -> binary.decode(truncated), "截断到" + length + "字节");
+        }
+    }
+
+    @Test
+    public void rejectsTrailingBytes() {
+        byte[] payload = binary.encode(fullLog("{}", "{}"));
+        byte[] extended = Arrays.copyOf(payload, payload.length + 1);
+        assertThrows(IllegalArgumentException.class, () -> binary.decode(extended));
+    }
+
+    @Test
+    public void rejectsUnknownPresenceBits() {
+        // presence 含 v2 之后才会出现的字段位
+        byte[] payload = {CallLogCodec.MAGIC, CallLogCodec.VERSION, (byte) 0x80, (byte) 0x80, 0x01};
+        assertThrows(IllegalArgumentException.class, () -> binary.decode(payload));
+    }
+
+    @Test
+    public void rejectsOversizedLengths() {
+        // accessKey 声明长度远超剩余字节，不能按声明长度分配数组
+        byte[] payload = {CallLogCodec.MAGIC, CallLogCodec.VERSION, 0x04, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0x7F, 'a'};
+        assertThrows(IllegalArgumentException.class, () -> binary.decode(payload));
+    }
+
+    @Test
+    public void rejectsCorruptCompressedText() {
+        String large = "{\"data\":\"" + "y".repeat(THRESHOLD * 4) + "\"}";
+        ApiCallLog callLog = new ApiCallLog();
+        callLog.setRequestParams(large);
+        byte[] payload = binary.encode(callLog);
+        // magic version presence flag(1=deflate) 原长度varint 压缩长度varint 压缩数据...
+        assertEquals(1, payload[3]);
+        // 篡改末尾的 Adler-32 校验和
+        byte[] corrupt = payload.clone();
+        corrupt[corrupt.length - 1] ^= 0x5A;
+        assertThrows(IllegalArgumentException.class, () -> binary.decode(corrupt));
+
+        // 声明的原长度比实际短
+        byte[] shorter = payload.clone();
+        shorter[4]--;
+        assertThrows(IllegalArgumentException.class, () -> binary.decode(shorter));
+
+        byte[] badFlag = payload.clone();
+        badFlag[3] = 7;
+        assertThrows(IllegalArgumentException.class, () -> binary.decode(badFlag));
+    }
+
+    @Test
+    public void rejectsCorruptJson() {
+        byte[] payload = "{\"id\":".getBytes(StandardCharsets.UTF_8);
+        assertThrows(IllegalArgumentException.class, () -> binary.decode(payload));
+    }
+
+    @Test
+    public void encodeIsDeterministic() {
+        ApiCallLog callLog = fullLog("{\"a\":1}", "{\"b\":2}");
+        assertArrayEquals(binary.encode(callLog), binary.encode(callLog));
+    }
+
+    private static ApiCallLog fullLog(String requestParams, String responseResult) {
+        ApiCallLog callLog = new ApiCallLog();
+        callLog.setId(123456789L);
+        callLog.setUserId(42L);
+        callLog.setAccessKey("7jxtUmuITH8lC68J");
+        callLog.setApiId(7L);
+        callLog.setIp("192.168.1.100");
+        callLog.setRequestParams(requestParams);
+        callLog.setResponseResult(responseResult);
+        callLog.setStatus(0);
+        callLog.setErrorMsg("下游超时");
+        callLog.setCostTime(1234L);
+        callLog.setCallTime(LocalDateTime.of(2026, 10, 17, 9, 30, 15, 123_000_000));
+        callLog.setApiPath("/api/business/weather");
+        callLog.setMethod("GET");
+        callLog.setApiName("天气查询");
+        return callLog;
+    }
+}
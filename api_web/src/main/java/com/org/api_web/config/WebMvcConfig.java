@@ -2,13 +2,18 @@ package com.org.api_web.config;
 
 import com.org.api_web.interceptor.JwtInterceptor;
 import com.org.api_web.interceptor.ApiPermissionInterceptor;
+import com.org.api_web.ratelimit.RateLimitFilter;
+import com.org.api_web.ratelimit.RateLimitProperties;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 /**
- * WebMvc配置（拦截器注册）
+ * WebMvc配置（限流过滤器、拦截器注册）
  * @author zhangzhenhui
  */
 @Configuration
@@ -20,6 +25,20 @@ public class WebMvcConfig implements WebMvcConfigurer {
     @Autowired
     private ApiPermissionInterceptor apiPermissionInterceptor;
 
+    /**
+     * 注册限流过滤器：过滤器先于所有MVC拦截器执行，超限请求在认证前直接拒绝
+     * 排在字符编码过滤器之后，保证读取请求参数时编码正确
+     */
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter rateLimitFilter,
+                                                                               RateLimitProperties properties) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(rateLimitFilter);
+        registration.setUrlPatterns(properties.getUrlPatterns());
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 100);
+        registration.setName("rateLimitFilter");
+        return registration;
+    }
+
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(jwtInterceptor)
@@ -32,6 +51,7 @@ public class WebMvcConfig implements WebMvcConfigurer {
                         "/api/user/availableApis",                 // 查询可用接口列表（需要Token验证）
                         "/api/user/applyApiPermission",            // 申请开通接口权限（需要Token验证）
                         "/api/user/myStatistics",                  // 查询我的调用统计（需要Token验证）
+                        "/api/user/myStatistics/range",            // 查询我的任意时间范围统计（需要Token验证）
                         "/api/user/call-log/**",                   // 查询我的调用日志（需要Token验证）
                         "/api/auth/userInfo",                     // 获取用户信息（需要Token验证）
                         "/api/auth/changePassword",                // 修改密码（需要Token验证）
@@ -0,0 +1,104 @@
+package com.org.api_web.context;
+
+import com.org.api_web.ratelimit.RateLimitResult;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.Data;
+
+/**
+ * 网关请求上下文（请求级，存放在request属性中）
+ * 由 ApiPermissionInterceptor 构建一次，切面及下游直接读取，避免重复解析用户/接口/IP
+ */
+@Data
+public class GatewayContext {
+
+    /** request属性名 */
+    public static final String REQUEST_ATTRIBUTE = GatewayContext.class.getName();
+
+    /** 调用方用户ID（签名校验通过后才有值） */
+    private Long userId;
+    /** 调用方AK */
+    private String accessKey;
+    /** AK权限类型（用于分级限流） */
+    private Integer permissionType;
+    /** 接口ID（已注册且启用的业务接口才有值） */
+    private Long apiId;
+    /** 接口名称 */
+    private String apiName;
+    /** 客户端IP */
+    private String clientIp;
+    /** 规范化后的请求路径 */
+    private String apiPath;
+    /** 请求方式（大写） */
+    private String method;
+    /** 请求进入网关的时间戳（毫秒） */
+    private long startTime;
+    /** 认证前的限流判定结果（IP/全局），与签名校验后的AK限流合并输出响应头 */
+    private RateLimitResult rateLimitResult;
+
+    /** 各阶段耗时（纳秒），用于性能剖析 */
+    private long signVerifyNanos;
+    private long permissionCheckNanos;
+    private long handlerNanos;
+
+    /**
+     * 获取当前请求的上下文，不存在则创建并绑定
+     */
+    public static GatewayContext getOrCreate(HttpServletRequest request) {
+        GatewayContext context = get(request);
+        if (context == null) {
+            context = new GatewayContext();
+            context.setStartTime(System.currentTimeMillis());
+            context.setClientIp(resolveClientIp(request));
+            context.setApiPath(normalizePath(request.getRequestURI()));
+            context.setMethod(request.getMethod().toUpperCase());
+            request.setAttribute(REQUEST_ATTRIBUTE, context);
+        }
+        return context;
+    }
+
+    /**
+     * 获取当前请求的上下文（未经过网关拦截器时返回null）
+     */
+    public static GatewayContext get(HttpServletRequest request) {
+        Object attribute = request.getAttribute(REQUEST_ATTRIBUTE);
+        return attribute instanceof GatewayContext ? (GatewayContext) attribute : null;
+    }
+
+    /**
+     * 解析客户端IP（依次取代理头，多个IP取第一个）
+     */
+    public static String resolveClientIp(HttpServletRequest request) {
+        String ip = request.getHeader("X-Forwarded-For");
+        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
+            ip = request.getHeader("X-Real-IP");
+        }
+        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
+            ip = request.getHeader("Proxy-Client-IP");
+        }
+        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
+            ip = request.getHeader("WL-Proxy-Client-IP");
+        }
+        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
+            ip = request.getRemoteAddr();
+        }
+        // 处理多个IP的情况（取第一个）
+        if (ip != null && ip.contains(",")) {
+            ip = ip.split(",")[0].trim();
+        }
+        return ip;
+    }
+
+    /**
+     * 路径规范化：去掉末尾多余的斜杠
+     */
+    public static String normalizePath(String path) {
+        if (path == null) {
+            return null;
+        }
+        int end = path.length();
+        while (end > 1 && path.charAt(end - 1) == '/') {
+            end--;
+        }
+        return end == path.length() ? path : path.substring(0, end);
+    }
+}
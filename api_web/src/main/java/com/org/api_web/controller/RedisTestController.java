@@ -1,7 +1,16 @@
 package com.org.api_web.controller;
 
+import com.org.api_admin_service.job.CallStatRollupJob;
 import com.org.api_common.annotation.ApiMetrics;
 import com.org.api_common.result.Result;
+import com.org.api_service.cache.AkCredentialCache;
+import com.org.api_service.calllog.CallLogPartitionManager;
+import com.org.api_service.calllog.CallLogQueue;
+import com.org.api_service.calllog.CallLogQueueConsumer;
+import com.org.api_web.metrics.CallLogBuffer;
+import com.org.api_web.metrics.CallLogSpool;
+import com.org.api_web.metrics.RealTimeMetricsAggregator;
+import com.org.api_web.ratelimit.RateLimitService;
 import jakarta.annotation.Resource;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.web.bind.annotation.*;
@@ -13,6 +22,33 @@ public class RedisTestController {
     @Resource
     private StringRedisTemplate stringRedisTemplate;
 
+    @Resource
+    private AkCredentialCache akCredentialCache;
+
+    @Resource
+    private RateLimitService rateLimitService;
+
+    @Resource
+    private RealTimeMetricsAggregator metricsAggregator;
+
+    @Resource
+    private CallLogBuffer callLogBuffer;
+
+    @Resource
+    private CallLogSpool callLogSpool;
+
+    @Resource
+    private CallLogQueueConsumer callLogQueueConsumer;
+
+    @Resource
+    private CallLogQueue callLogQueue;
+
+    @Resource
+    private CallLogPartitionManager callLogPartitionManager;
+
+    @Resource
+    private CallStatRollupJob callStatRollupJob;
+
     // 测试接口：往Redis存值+取值
     @GetMapping("/redis")
     public String testRedis() {
@@ -40,13 +76,11 @@ public class RedisTestController {
     }
 
     /**
-     * 查看Redis队列中的数据
+     * 查看调用日志队列状态（List模式为队列长度，Stream模式含待确认数量）
      */
     @GetMapping("/metrics/queue")
     public Result<Object> viewQueue() {
-        String queueKey = "api:metrics:queue";
-        Long queueSize = stringRedisTemplate.opsForList().size(queueKey);
-        return Result.success("队列长度: " + queueSize);
+        return Result.success(callLogQueue.stats());
     }
 
     /**
@@ -55,20 +89,80 @@ public class RedisTestController {
     @GetMapping("/metrics/stats")
     public Result<Object> viewStats(@RequestParam String apiPath) {
         String today = java.time.LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-        String totalKey = "api:metrics:total:" + apiPath + ":" + today;
-        String successKey = "api:metrics:success:" + apiPath + ":" + today;
-        String failKey = "api:metrics:fail:" + apiPath + ":" + today;
-
-        String total = stringRedisTemplate.opsForValue().get(totalKey);
-        String success = stringRedisTemplate.opsForValue().get(successKey);
-        String fail = stringRedisTemplate.opsForValue().get(failKey);
+        String dayKey = "api:metrics:api-day:" + apiPath + ":" + today;
+        java.util.List<Object> values = stringRedisTemplate.opsForHash()
+                .multiGet(dayKey, java.util.List.of("total", "success", "fail"));
 
         java.util.Map<String, Object> stats = new java.util.HashMap<>();
-        stats.put("total", total != null ? total : "0");
-        stats.put("success", success != null ? success : "0");
-        stats.put("fail", fail != null ? fail : "0");
+        stats.put("total", values.get(0) != null ? values.get(0) : "0");
+        stats.put("success", values.get(1) != null ? values.get(1) : "0");
+        stats.put("fail", values.get(2) != null ? values.get(2) : "0");
         stats.put("date", today);
 
         return Result.success(stats);
     }
-}
\ No newline at end of file
+
+    /**
+     * 查看AK凭证本地缓存命中情况
+     */
+    @GetMapping("/metrics/ak-cache")
+    public Result<Object> viewAkCacheStats() {
+        return Result.success(akCredentialCache.stats());
+    }
+
+    /**
+     * 查看网关限流放行/拒绝统计
+     */
+    @GetMapping("/metrics/rate-limit")
+    public Result<Object> viewRateLimitStats() {
+        return Result.success(rateLimitService.stats());
+    }
+
+    /**
+     * 查看实时统计本地聚合器状态
+     */
+    @GetMapping("/metrics/aggregator")
+    public Result<Object> viewAggregatorStats() {
+        return Result.success(metricsAggregator.stats());
+    }
+
+    /**
+     * 查看调用日志缓冲区状态（积压、丢弃、批量写入次数）
+     */
+    @GetMapping("/metrics/call-log-buffer")
+    public Result<Object> viewCallLogBufferStats() {
+        return Result.success(callLogBuffer.stats());
+    }
+
+    /**
+     * 查看调用日志本地落盘状态（段文件数、待回放字节数、回放速率）
+     */
+    @GetMapping("/metrics/call-log-spool")
+    public Result<Object> viewCallLogSpoolStats() {
+        return Result.success(callLogSpool.stats());
+    }
+
+    /**
+     * 查看调用日志分区维护状态
+     */
+    @GetMapping("/metrics/call-log-partition")
+    public Result<Object> viewCallLogPartitionStats() {
+        return Result.success(callLogPartitionManager.stats());
+    }
+
+    /**
+     * 查看调用日志汇总任务状态
+     */
+    @GetMapping("/metrics/call-stat-rollup")
+    public Result<Object> viewCallStatRollupStats() {
+        return Result.success(callStatRollupJob.stats());
+    }
+
+    /**
+     * 查看调用日志消费状态（队列深度、消费延迟、入库/死信数量）
+     */
+    @GetMapping("/metrics/call-log-consumer")
+    public Result<Object> viewCallLogConsumerStats() {
+        return Result.success(callLogQueueConsumer.stats());
+    }
+}
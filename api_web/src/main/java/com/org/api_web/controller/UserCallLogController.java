@@ -2,27 +2,24 @@ package com.org.api_web.controller;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
-import com.org.api_admin_service.service.ApiInfoService;
 import com.org.api_common.entity.ApiCallLog;
-import com.org.api_common.entity.ApiInfo;
 import com.org.api_common.exception.BusinessException;
 import com.org.api_common.result.Result;
 import com.org.api_common.constant.ErrorCodeEnum;
+import com.org.api_common.vo.CallLogScrollVO;
 import com.org.api_service.service.ApiCallLogService;
+import com.org.api_web.export.CallLogExporter;
+import jakarta.servlet.http.HttpServletResponse;
 import com.org.api_web.interceptor.JwtInterceptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
-import java.util.Map;
-import java.util.Objects;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * 用户调用日志查询接口
@@ -31,14 +28,18 @@ import java.util.stream.Collectors;
 @RequestMapping("/api/user/call-log")
 public class UserCallLogController {
 
+    /** 游标分页单页最多条数 */
+    private static final int MAX_SCROLL_SIZE = 100;
+
     @Autowired
     private ApiCallLogService apiCallLogService;
 
     @Autowired
-    private ApiInfoService apiInfoService;
+    private CallLogExporter callLogExporter;
 
     /**
      * 分页查询当前登录用户的调用日志
+     * @param searchCount 是否统计总条数（翻页时可传false省掉COUNT）
      */
     @GetMapping("/page")
     public Result<Page<ApiCallLog>> pageMyCallLogs(
@@ -47,8 +48,63 @@ public class UserCallLogController {
             @RequestParam(required = false) String apiPath,
             @RequestParam(required = false) Integer status,
             @RequestParam(required = false) String startTime,
-            @RequestParam(required = false) String endTime
+            @RequestParam(required = false) String endTime,
+            @RequestParam(required = false, defaultValue = "true") Boolean searchCount
     ) {
+        QueryWrapper<ApiCallLog> wrapper = buildWrapper(apiPath, status, startTime, endTime);
+        wrapper.orderByDesc("call_time");
+
+        Page<ApiCallLog> page = new Page<>(pageNum, pageSize);
+        page.setSearchCount(searchCount);
+        page = apiCallLogService.page(page, wrapper);
+
+        return Result.success(page, "查询成功");
+    }
+
+    /**
+     * 游标分页查询当前登录用户的调用日志（按调用时间倒序，深翻页不变慢）
+     * @param cursor 上一页返回的 nextCursor，首页不传
+     * @param withTotal 是否统计总条数
+     */
+    @GetMapping("/scroll")
+    public Result<CallLogScrollVO> scrollMyCallLogs(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "10") Integer pageSize,
+            @RequestParam(required = false) String apiPath,
+            @RequestParam(required = false) Integer status,
+            @RequestParam(required = false) String startTime,
+            @RequestParam(required = false) String endTime,
+            @RequestParam(required = false, defaultValue = "false") Boolean withTotal
+    ) {
+        QueryWrapper<ApiCallLog> wrapper = buildWrapper(apiPath, status, startTime, endTime);
+        int size = Math.max(1, Math.min(MAX_SCROLL_SIZE, pageSize));
+        CallLogScrollVO vo = apiCallLogService.scroll(wrapper, cursor, size, withTotal);
+        return Result.success(vo, "查询成功");
+    }
+
+    /**
+     * 流式导出当前登录用户的调用日志（过滤条件同 /page，按调用时间倒序）
+     * @param format csv / ndjson
+     */
+    @GetMapping("/export")
+    public WebAsyncTask<Void> exportMyCallLogs(
+            @RequestParam(required = false, defaultValue = "csv") String format,
+            @RequestParam(required = false) String apiPath,
+            @RequestParam(required = false) Integer status,
+            @RequestParam(required = false) String startTime,
+            @RequestParam(required = false) String endTime,
+            HttpServletResponse response
+    ) {
+        // 用户ID在请求线程读取，写出在异步线程进行
+        QueryWrapper<ApiCallLog> wrapper = buildWrapper(apiPath, status, startTime, endTime);
+        wrapper.orderByDesc("call_time", "id");
+        return callLogExporter.export(wrapper, format, "call-log", response);
+    }
+
+    /**
+     * 当前登录用户的查询条件（需要 (user_id, call_time, id) 索引，见 index_api_call_log.sql）
+     */
+    private QueryWrapper<ApiCallLog> buildWrapper(String apiPath, Integer status, String startTime, String endTime) {
         Long userId = JwtInterceptor.getCurrentUserId();
         if (userId == null) {
             throw new BusinessException(ErrorCodeEnum.TOKEN_MISSING, "Token中未找到用户ID");
@@ -56,12 +112,11 @@ public class UserCallLogController {
 
         QueryWrapper<ApiCallLog> wrapper = new QueryWrapper<>();
         wrapper.eq("user_id", userId);
-        if (apiPath != null && !apiPath.trim().isEmpty()) {
-            wrapper.like("api_path", apiPath.trim());
-        }
+        applyApiPathFilter(wrapper, apiPath);
         if (status != null) {
             wrapper.eq("status", status);
         }
+        // 带时间范围时只扫描覆盖的分区
         LocalDateTime start = parseDateTime(startTime, true);
         LocalDateTime end = parseDateTime(endTime, false);
         if (start != null) {
@@ -70,31 +125,22 @@ public class UserCallLogController {
         if (end != null) {
             wrapper.le("call_time", end);
         }
-        wrapper.orderByDesc("call_time");
-
-        Page<ApiCallLog> page = apiCallLogService.page(new Page<>(pageNum, pageSize), wrapper);
+        return wrapper;
+    }
 
-        // 补充接口信息（路径、方法）
-        if (page.getRecords() != null && !page.getRecords().isEmpty()) {
-            Set<Long> apiIds = page.getRecords().stream()
-                    .map(ApiCallLog::getApiId)
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toSet());
-            if (!apiIds.isEmpty()) {
-                List<ApiInfo> apiInfos = apiInfoService.listByIds(apiIds);
-                Map<Long, ApiInfo> apiMap = apiInfos.stream()
-                        .collect(Collectors.toMap(ApiInfo::getId, a -> a));
-                page.getRecords().forEach(log -> {
-                    ApiInfo api = apiMap.get(log.getApiId());
-                    if (api != null) {
-                        log.setApiPath(api.getApiPath());
-                        log.setMethod(api.getMethod());
-                    }
-                });
-            }
+    /**
+     * 接口路径过滤：以 / 开头按前缀匹配，否则按包含匹配（均在 (user_id, call_time, id) 索引倒序扫描时逐行过滤）
+     */
+    private void applyApiPathFilter(QueryWrapper<ApiCallLog> wrapper, String apiPath) {
+        if (apiPath == null || apiPath.trim().isEmpty()) {
+            return;
+        }
+        String path = apiPath.trim();
+        if (path.startsWith("/")) {
+            wrapper.likeRight("api_path", path);
+        } else {
+            wrapper.like("api_path", path);
         }
-
-        return Result.success(page, "查询成功");
     }
 
     /**
@@ -118,41 +164,3 @@ public class UserCallLogController {
         }
     }
 }
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
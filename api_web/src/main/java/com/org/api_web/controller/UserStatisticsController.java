@@ -1,6 +1,7 @@
 package com.org.api_web.controller;
 
 import com.org.api_common.result.Result;
+import com.org.api_common.vo.CallStatRangeVO;
 import com.org.api_common.vo.MyStatisticsVO;
 import com.org.api_admin_service.service.StatisticsService;
 import com.org.api_web.interceptor.JwtInterceptor;
@@ -83,5 +84,55 @@ public class UserStatisticsController {
 
         return Result.success(statistics, "查询成功");
     }
+
+    /**
+     * 获取我的任意时间范围调用统计（基于汇总表，含成功/失败、各接口明细和响应时间分布）
+     *
+     * @param startTime 开始时间（可选，格式：yyyy-MM-dd HH:mm:ss 或 yyyy-MM-dd，默认最近30天）
+     * @param endTime 结束时间（可选，格式：yyyy-MM-dd HH:mm:ss 或 yyyy-MM-dd，默认当前时间）
+     * @return 统计信息
+     */
+    @GetMapping("/myStatistics/range")
+    public Result<CallStatRangeVO> getMyRangeStatistics(
+            @RequestParam(required = false) String startTime,
+            @RequestParam(required = false) String endTime
+    ) {
+        Long userId = JwtInterceptor.getCurrentUserId();
+        if (userId == null) {
+            throw new com.org.api_common.exception.BusinessException(
+                    com.org.api_common.constant.ErrorCodeEnum.TOKEN_MISSING, "Token中未找到用户ID");
+        }
+
+        LocalDateTime startDateTime = parseDateTime(startTime, true);
+        LocalDateTime endDateTime = parseDateTime(endTime, false);
+        if (startDateTime != null && endDateTime != null && startDateTime.isAfter(endDateTime)) {
+            throw new com.org.api_common.exception.BusinessException(
+                    com.org.api_common.constant.ErrorCodeEnum.PARAM_ERROR, "开始时间不能晚于结束时间");
+        }
+
+        CallStatRangeVO statistics = statisticsService.getRangeStatistics(userId, startDateTime, endDateTime);
+        return Result.success(statistics, "查询成功");
+    }
+
+    /**
+     * 解析日期时间字符串，支持 yyyy-MM-dd 或 yyyy-MM-dd HH:mm:ss
+     */
+    private LocalDateTime parseDateTime(String value, boolean isStart) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            String trimmed = value.trim();
+            if (trimmed.length() == 10) {
+                return isStart
+                        ? java.time.LocalDate.parse(trimmed).atStartOfDay()
+                        : java.time.LocalDate.parse(trimmed).atTime(23, 59, 59);
+            }
+            return LocalDateTime.parse(trimmed, java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+        } catch (Exception e) {
+            throw new com.org.api_common.exception.BusinessException(
+                    com.org.api_common.constant.ErrorCodeEnum.PARAM_ERROR, "时间格式错误，应为 yyyy-MM-dd 或 yyyy-MM-dd HH:mm:ss");
+        }
+    }
 }
 
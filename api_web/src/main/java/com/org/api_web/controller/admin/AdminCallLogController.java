@@ -2,17 +2,25 @@ package com.org.api_web.controller.admin;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.org.api_common.constant.ErrorCodeEnum;
 import com.org.api_common.entity.ApiCallLog;
+import com.org.api_common.exception.BusinessException;
 import com.org.api_common.result.Result;
+import com.org.api_common.vo.CallLogScrollVO;
 import com.org.api_service.service.ApiCallLogService;
 import com.org.api_service.service.SysUserService;
-import com.org.api_admin_service.service.ApiInfoService;
-import com.org.api_common.entity.ApiInfo;
+import com.org.api_web.export.CallLogExporter;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 
 /**
  * 管理员调用日志查询接口
@@ -21,6 +29,9 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/api/admin/call-log")
 public class AdminCallLogController {
 
+    /** 游标分页单页最多条数 */
+    private static final int MAX_SCROLL_SIZE = 100;
+
     @Autowired
     private ApiCallLogService apiCallLogService;
 
@@ -28,10 +39,11 @@ public class AdminCallLogController {
     private SysUserService sysUserService;
 
     @Autowired
-    private ApiInfoService apiInfoService;
+    private CallLogExporter callLogExporter;
 
     /**
      * 分页查询调用日志（管理员）
+     * @param searchCount 是否统计总条数（翻页时可传false省掉COUNT）
      */
     @GetMapping("/page")
     public Result<Page<ApiCallLog>> pageCallLogs(
@@ -43,48 +55,137 @@ public class AdminCallLogController {
             @RequestParam(required = false, defaultValue = "10") Integer pageSize,
             @RequestParam(required = false) String apiPath,
             @RequestParam(required = false) String targetAccessKey,
-            @RequestParam(required = false) Integer status
+            @RequestParam(required = false) Integer status,
+            @RequestParam(required = false) String startTime,
+            @RequestParam(required = false) String endTime,
+            @RequestParam(required = false, defaultValue = "true") Boolean searchCount
     ) {
         // 1. 管理员权限校验
         sysUserService.verifyAdminPermission(accessKey, sign, timestamp, nonce);
 
         // 2. 构造查询条件
+        QueryWrapper<ApiCallLog> wrapper = buildWrapper(apiPath, targetAccessKey, status, startTime, endTime);
+        wrapper.orderByDesc("call_time");
+
+        // 3. 分页查询
+        Page<ApiCallLog> page = new Page<>(pageNum, pageSize);
+        page.setSearchCount(searchCount);
+        page = apiCallLogService.page(page, wrapper);
+
+        return Result.success(page, "查询成功");
+    }
+
+    /**
+     * 游标分页查询调用日志（管理员，按调用时间倒序，深翻页不变慢）
+     * @param cursor 上一页返回的 nextCursor，首页不传
+     * @param withTotal 是否统计总条数
+     */
+    @GetMapping("/scroll")
+    public Result<CallLogScrollVO> scrollCallLogs(
+            @RequestParam String accessKey,
+            @RequestParam String sign,
+            @RequestParam Long timestamp,
+            @RequestParam String nonce,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "10") Integer pageSize,
+            @RequestParam(required = false) String apiPath,
+            @RequestParam(required = false) String targetAccessKey,
+            @RequestParam(required = false) Integer status,
+            @RequestParam(required = false) String startTime,
+            @RequestParam(required = false) String endTime,
+            @RequestParam(required = false, defaultValue = "false") Boolean withTotal
+    ) {
+        sysUserService.verifyAdminPermission(accessKey, sign, timestamp, nonce);
+
+        QueryWrapper<ApiCallLog> wrapper = buildWrapper(apiPath, targetAccessKey, status, startTime, endTime);
+        int size = Math.max(1, Math.min(MAX_SCROLL_SIZE, pageSize));
+        CallLogScrollVO vo = apiCallLogService.scroll(wrapper, cursor, size, withTotal);
+        return Result.success(vo, "查询成功");
+    }
+
+    /**
+     * 流式导出调用日志（管理员，过滤条件同 /page，按调用时间倒序）
+     * @param format csv / ndjson
+     */
+    @GetMapping("/export")
+    public WebAsyncTask<Void> exportCallLogs(
+            @RequestParam String accessKey,
+            @RequestParam String sign,
+            @RequestParam Long timestamp,
+            @RequestParam String nonce,
+            @RequestParam(required = false, defaultValue = "csv") String format,
+            @RequestParam(required = false) String apiPath,
+            @RequestParam(required = false) String targetAccessKey,
+            @RequestParam(required = false) Integer status,
+            @RequestParam(required = false) String startTime,
+            @RequestParam(required = false) String endTime,
+            HttpServletResponse response
+    ) {
+        sysUserService.verifyAdminPermission(accessKey, sign, timestamp, nonce);
+
+        QueryWrapper<ApiCallLog> wrapper = buildWrapper(apiPath, targetAccessKey, status, startTime, endTime);
+        wrapper.orderByDesc("call_time", "id");
+        return callLogExporter.export(wrapper, format, "call-log-admin", response);
+    }
+
+    /**
+     * 查询条件（按AK过滤需要 (access_key, call_time, id) 索引，见 index_api_call_log.sql）
+     */
+    private QueryWrapper<ApiCallLog> buildWrapper(String apiPath, String targetAccessKey, Integer status,
+                                                  String startTime, String endTime) {
         QueryWrapper<ApiCallLog> wrapper = new QueryWrapper<>();
-        if (apiPath != null && !apiPath.trim().isEmpty()) {
-            wrapper.like("api_path", apiPath.trim());
-        }
+        applyApiPathFilter(wrapper, apiPath);
         if (targetAccessKey != null && !targetAccessKey.trim().isEmpty()) {
             wrapper.eq("access_key", targetAccessKey.trim());
         }
         if (status != null) {
             wrapper.eq("status", status);
         }
-        wrapper.orderByDesc("call_time");
+        // 带时间范围时只扫描覆盖的分区
+        LocalDateTime start = parseDateTime(startTime, true);
+        LocalDateTime end = parseDateTime(endTime, false);
+        if (start != null) {
+            wrapper.ge("call_time", start);
+        }
+        if (end != null) {
+            wrapper.le("call_time", end);
+        }
+        return wrapper;
+    }
 
-        // 3. 分页查询
-        Page<ApiCallLog> page = apiCallLogService.page(new Page<>(pageNum, pageSize), wrapper);
-
-        // 4. 补充接口路径/方法信息（非持久化字段，仅用于前端展示）
-        if (page.getRecords() != null && !page.getRecords().isEmpty()) {
-            java.util.Set<Long> apiIds = page.getRecords().stream()
-                    .map(ApiCallLog::getApiId)
-                    .filter(java.util.Objects::nonNull)
-                    .collect(java.util.stream.Collectors.toSet());
-            if (!apiIds.isEmpty()) {
-                java.util.List<ApiInfo> apiInfos = apiInfoService.listByIds(apiIds);
-                java.util.Map<Long, ApiInfo> apiMap = apiInfos.stream()
-                        .collect(java.util.stream.Collectors.toMap(ApiInfo::getId, a -> a));
-                page.getRecords().forEach(log -> {
-                    ApiInfo api = apiMap.get(log.getApiId());
-                    if (api != null) {
-                        log.setApiPath(api.getApiPath());
-                        log.setMethod(api.getMethod());
-                    }
-                });
-            }
+    /**
+     * 接口路径过滤：以 / 开头按前缀匹配（可走 api_path 索引），否则按包含匹配
+     */
+    private void applyApiPathFilter(QueryWrapper<ApiCallLog> wrapper, String apiPath) {
+        if (apiPath == null || apiPath.trim().isEmpty()) {
+            return;
+        }
+        String path = apiPath.trim();
+        if (path.startsWith("/")) {
+            wrapper.likeRight("api_path", path);
+        } else {
+            wrapper.like("api_path", path);
         }
+    }
 
-        return Result.success(page, "查询成功");
+    /**
+     * 解析日期时间字符串，支持 yyyy-MM-dd 或 yyyy-MM-dd HH:mm:ss
+     */
+    private LocalDateTime parseDateTime(String dateTimeStr, boolean isStart) {
+        if (dateTimeStr == null || dateTimeStr.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            String trimmed = dateTimeStr.trim();
+            if (trimmed.length() == 10) {
+                return isStart
+                        ? LocalDate.parse(trimmed).atStartOfDay()
+                        : LocalDate.parse(trimmed).atTime(23, 59, 59);
+            }
+            return LocalDateTime.parse(trimmed, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+        } catch (Exception e) {
+            throw new BusinessException(ErrorCodeEnum.PARAM_ERROR, "时间格式错误，应为 yyyy-MM-dd 或 yyyy-MM-dd HH:mm:ss");
+        }
     }
 }
 
@@ -2,7 +2,10 @@ package com.org.api_web.controller.admin;
 
 import com.org.api_admin_service.service.StatisticsService;
 import com.org.api_common.result.Result;
+import com.org.api_common.vo.CallStatRangeVO;
 import com.org.api_common.vo.GlobalStatisticsVO;
+import com.org.api_common.vo.LatencyStatsVO;
+import com.org.api_common.vo.UniqueCallerStatsVO;
 import com.org.api_service.service.SysUserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -60,6 +63,93 @@ public class AdminStatisticsController {
         return Result.success(statistics, "查询成功");
     }
 
+    /**
+     * 任意时间范围调用统计（基于小时/日汇总表，不受Redis日统计保留期限制）
+     * @param userId 只统计该用户（可选）
+     */
+    @GetMapping("/range")
+    public Result<CallStatRangeVO> getRangeStatistics(
+            @RequestParam String accessKey,
+            @RequestParam String sign,
+            @RequestParam Long timestamp,
+            @RequestParam String nonce,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String startTime,
+            @RequestParam(required = false) String endTime
+    ) {
+        sysUserService.verifyAdminPermission(accessKey, sign, timestamp, nonce);
+
+        LocalDateTime startDateTime = null;
+        LocalDateTime endDateTime = null;
+        if (startTime != null && !startTime.trim().isEmpty()) {
+            startDateTime = parseDateTime(startTime, true);
+        }
+        if (endTime != null && !endTime.trim().isEmpty()) {
+            endDateTime = parseDateTime(endTime, false);
+        }
+
+        CallStatRangeVO statistics = statisticsService.getRangeStatistics(userId, startDateTime, endDateTime);
+        return Result.success(statistics, "查询成功");
+    }
+
+    /**
+     * 响应时间分位数（p50/p90/p99/max），分钟精度，范围限于Redis日统计保留期内
+     * @param apiPath 只统计该接口路径（可选）
+     */
+    @GetMapping("/latency")
+    public Result<LatencyStatsVO> getLatencyStatistics(
+            @RequestParam String accessKey,
+            @RequestParam String sign,
+            @RequestParam Long timestamp,
+            @RequestParam String nonce,
+            @RequestParam(required = false) String apiPath,
+            @RequestParam(required = false) String startTime,
+            @RequestParam(required = false) String endTime
+    ) {
+        sysUserService.verifyAdminPermission(accessKey, sign, timestamp, nonce);
+
+        LocalDateTime startDateTime = null;
+        LocalDateTime endDateTime = null;
+        if (startTime != null && !startTime.trim().isEmpty()) {
+            startDateTime = parseDateTime(startTime, true);
+        }
+        if (endTime != null && !endTime.trim().isEmpty()) {
+            endDateTime = parseDateTime(endTime, false);
+        }
+
+        LatencyStatsVO statistics = statisticsService.getLatencyStatistics(apiPath, startDateTime, endDateTime);
+        return Result.success(statistics, "查询成功");
+    }
+
+    /**
+     * 去重调用方（accessKey）数、去重IP数，按天精度，范围限于Redis日统计保留期内
+     * @param apiPath 只统计该接口路径（可选）
+     */
+    @GetMapping("/unique")
+    public Result<UniqueCallerStatsVO> getUniqueCallerStatistics(
+            @RequestParam String accessKey,
+            @RequestParam String sign,
+            @RequestParam Long timestamp,
+            @RequestParam String nonce,
+            @RequestParam(required = false) String apiPath,
+            @RequestParam(required = false) String startTime,
+            @RequestParam(required = false) String endTime
+    ) {
+        sysUserService.verifyAdminPermission(accessKey, sign, timestamp, nonce);
+
+        LocalDateTime startDateTime = null;
+        LocalDateTime endDateTime = null;
+        if (startTime != null && !startTime.trim().isEmpty()) {
+            startDateTime = parseDateTime(startTime, true);
+        }
+        if (endTime != null && !endTime.trim().isEmpty()) {
+            endDateTime = parseDateTime(endTime, false);
+        }
+
+        UniqueCallerStatsVO statistics = statisticsService.getUniqueCallerStatistics(apiPath, startDateTime, endDateTime);
+        return Result.success(statistics, "查询成功");
+    }
+
     private LocalDateTime parseDateTime(String value, boolean isStart) {
         try {
             if (value.length() == 10) {
@@ -62,7 +62,10 @@ public class ApiInfoController {
             @RequestParam String apiPath,
             @RequestParam String method,
             @RequestParam(required = false) String apiDesc,
-            @RequestParam Integer status) {
+            @RequestParam Integer status,
+            @RequestParam(required = false) String rateLimitAlgorithm,
+            @RequestParam(required = false) Integer rateLimitCount,
+            @RequestParam(required = false) Integer rateLimitWindow) {
 
         ApiInfoDTO apiInfoDTO = new ApiInfoDTO();
         apiInfoDTO.setApiName(apiName);
@@ -70,6 +73,9 @@ public class ApiInfoController {
         apiInfoDTO.setMethod(method);
         apiInfoDTO.setApiDesc(apiDesc);
         apiInfoDTO.setStatus(status);
+        apiInfoDTO.setRateLimitAlgorithm(rateLimitAlgorithm);
+        apiInfoDTO.setRateLimitCount(rateLimitCount);
+        apiInfoDTO.setRateLimitWindow(rateLimitWindow);
         // 管理员权限校验
         sysUserService.verifyAdminPermission(accessKey, sign, timestamp, nonce);
 
@@ -91,7 +97,10 @@ public class ApiInfoController {
             @RequestParam String apiPath,
             @RequestParam String method,
             @RequestParam(required = false) String apiDesc,
-            @RequestParam Integer status) {
+            @RequestParam Integer status,
+            @RequestParam(required = false) String rateLimitAlgorithm,
+            @RequestParam(required = false) Integer rateLimitCount,
+            @RequestParam(required = false) Integer rateLimitWindow) {
 
         ApiInfoDTO apiInfoDTO = new ApiInfoDTO();
         apiInfoDTO.setApiName(apiName);
@@ -99,6 +108,9 @@ public class ApiInfoController {
         apiInfoDTO.setMethod(method);
         apiInfoDTO.setApiDesc(apiDesc);
         apiInfoDTO.setStatus(status);
+        apiInfoDTO.setRateLimitAlgorithm(rateLimitAlgorithm);
+        apiInfoDTO.setRateLimitCount(rateLimitCount);
+        apiInfoDTO.setRateLimitWindow(rateLimitWindow);
         // 管理员权限校验
         sysUserService.verifyAdminPermission(accessKey, sign, timestamp, nonce);
 
@@ -0,0 +1,202 @@
+package com.org.api_web.export;
+
+import com.alibaba.fastjson2.JSON;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.org.api_common.constant.ErrorCodeEnum;
+import com.org.api_common.entity.ApiCallLog;
+import com.org.api_common.exception.BusinessException;
+import com.org.api_service.service.ApiCallLogService;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 调用日志流式导出（CSV / NDJSON）
+ * 1. 只读事务内用MyBatis游标逐行读取，边读边写响应流，内存占用与导出行数无关
+ * 2. 响应在异步线程写出，查询条件必须在请求线程构建好再传入（JWT用户信息在请求线程的ThreadLocal中）
+ * 3. 每个导出占用一个数据库连接直到写完，同时进行的导出数受 max-concurrent 限制，超出直接拒绝，避免占满连接池；
+ *    许可在异步任务内获取并在 finally 中归还，任务未能执行时不会泄漏
+ * 4. 超时只作用于导出请求（WebAsyncTask 自带超时），不调整全局异步请求超时
+ * 5. 客户端中途断开或超时时写出抛IOException，先终止服务端查询再关闭游标（见 ApiCallLogService.forEach），只记日志不再抛出
+ */
+@Slf4j
+@Component
+public class CallLogExporter {
+
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_NDJSON = "ndjson";
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson;charset=UTF-8");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv;charset=UTF-8");
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    private static final DateTimeFormatter CALL_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String[] CSV_HEADER = {
+            "id", "userId", "accessKey", "apiId", "apiPath", "method", "apiName", "ip",
+            "status", "costTime", "errorMsg", "callTime", "requestParams", "responseResult"
+    };
+
+    @Autowired
+    private ApiCallLogService apiCallLogService;
+
+    /** 导出请求超时（毫秒），超时后响应被关闭，下一次写出失败即终止查询 */
+    @Value("${api.call-log.export.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    private final Semaphore permits;
+
+    public CallLogExporter(@Value("${api.call-log.export.max-concurrent:2}") int maxConcurrent) {
+        this.permits = new Semaphore(Math.max(1, maxConcurrent));
+    }
+
+    /**
+     * 构建导出任务（异步线程获取许可、设置响应头并写出响应体）
+     * @param wrapper 查询条件（已含排序）
+     * @param format csv / ndjson
+     * @param filePrefix 下载文件名前缀
+     * @param response 当前响应
+     */
+    public WebAsyncTask<Void> export(QueryWrapper<ApiCallLog> wrapper, String format, String filePrefix,
+                                     HttpServletResponse response) {
+        String fmt = format == null ? FORMAT_CSV : format.trim().toLowerCase();
+        boolean csv;
+        if (FORMAT_CSV.equals(fmt)) {
+            csv = true;
+        } else if (FORMAT_NDJSON.equals(fmt)) {
+            csv = false;
+        } else {
+            throw new BusinessException(ErrorCodeEnum.PARAM_ERROR, "导出格式只支持 csv 或 ndjson");
+        }
+
+        String fileName = filePrefix + "-" + LocalDateTime.now().format(FILE_TIME) + "." + fmt;
+        // 许可在异步线程内获取、写完归还：任务未执行（线程池拒绝、异步启动失败）时不会占用许可
+        return new WebAsyncTask<>(timeoutMs, () -> {
+            if (!permits.tryAcquire()) {
+                throw new BusinessException(ErrorCodeEnum.RATE_LIMIT_EXCEEDED, "当前导出任务过多，请稍后再试");
+            }
+            try {
+                // 拿到许可后再设置下载响应头，被拒绝时按普通错误响应返回
+                response.setContentType((csv ? CSV : NDJSON).toString());
+                response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(fileName, StandardCharsets.UTF_8).build().toString());
+                response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+                write(wrapper, csv, response.getOutputStream());
+            } finally {
+                permits.release();
+            }
+            return null;
+        });
+    }
+
+    private void write(QueryWrapper<ApiCallLog> wrapper, boolean csv, OutputStream out) {
+        long start = System.currentTimeMillis();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        long rows;
+        try {
+            if (csv) {
+                // BOM：Excel 打开时按 UTF-8 识别中文
+                writer.write('\uFEFF');
+                writeCsvRow(writer, CSV_HEADER);
+            }
+            rows = apiCallLogService.forEach(wrapper, callLog -> {
+                try {
+                    if (csv) {
+                        writeCsvRow(writer, toCsvRow(callLog));
+                    } else {
+                        writer.write(JSON.toJSONString(callLog));
+                        writer.write('\n');
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+        } catch (IOException | UncheckedIOException e) {
+            // 客户端断开（ClientAbortException）、超时或网络异常，查询已终止、游标已随事务关闭
+            log.info("[CallLogExport] 导出中断，已耗时{}ms: {}", System.currentTimeMillis() - start, e.getMessage());
+            return;
+        }
+        log.info("[CallLogExport] 导出完成，{}行，耗时{}ms", rows, System.currentTimeMillis() - start);
+    }
+
+    private static String[] toCsvRow(ApiCallLog callLog) {
+        return new String[]{
+                str(callLog.getId()),
+                str(callLog.getUserId()),
+                callLog.getAccessKey(),
+                str(callLog.getApiId()),
+                callLog.getApiPath(),
+                callLog.getMethod(),
+                callLog.getApiName(),
+                callLog.getIp(),
+                str(callLog.getStatus()),
+                str(callLog.getCostTime()),
+                callLog.getErrorMsg(),
+                callLog.getCallTime() == null ? null : callLog.getCallTime().format(CALL_TIME),
+                callLog.getRequestParams(),
+                callLog.getResponseResult()
+        };
+    }
+
+    private static String str(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    private static void writeCsvRow(Writer writer, String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeCsvField(writer, values[i]);
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * RFC 4180：含逗号、引号、换行的字段用双引号包裹，内部引号双写
+     */
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                quote = true;
+                break;
+            }
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+}
@@ -6,20 +6,24 @@ import com.org.api_common.exception.BusinessException;
 import com.org.api_admin_service.service.ApiInfoService;
 import com.org.api_admin_service.service.ApiPermissionService;
 import com.org.api_service.service.SysUserService;
+import com.org.api_web.context.GatewayContext;
+import com.org.api_web.ratelimit.RateLimitResult;
+import com.org.api_web.ratelimit.RateLimitService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.servlet.HandlerInterceptor;
 
-import java.time.LocalDateTime;
-import java.util.List;
-
 /**
  * 业务接口权限拦截器
  * 拦截业务接口调用，校验用户是否有该接口的调用权限
+ * 签名校验通过后才按AK分级限流（IP/全局限流已在 RateLimitFilter 完成）
+ * 解析结果写入 GatewayContext，供 ApiMetricsAspect 等下游直接复用
  */
+@Slf4j
 @Component
 public class ApiPermissionInterceptor implements HandlerInterceptor {
 
@@ -32,6 +36,9 @@ public class ApiPermissionInterceptor implements HandlerInterceptor {
     @Autowired
     private ApiPermissionService apiPermissionService;
 
+    @Autowired
+    private RateLimitService rateLimitService;
+
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
         // OPTIONS 预检请求直接放行
@@ -39,8 +46,9 @@ public class ApiPermissionInterceptor implements HandlerInterceptor {
             return true;
         }
 
-        String requestPath = request.getRequestURI();
-        String method = request.getMethod();
+        GatewayContext context = GatewayContext.getOrCreate(request);
+        String requestPath = context.getApiPath();
+        String method = context.getMethod();
 
         // 1. 从请求参数中获取签名参数（业务接口通过AK/SK调用）
         String accessKey = request.getParameter("accessKey");
@@ -54,22 +62,62 @@ public class ApiPermissionInterceptor implements HandlerInterceptor {
 
         // 2. 先校验AK/SK签名（必须先校验签名，确保请求合法）
         if (StringUtils.hasText(sign) && StringUtils.hasText(timestampStr) && StringUtils.hasText(nonce)) {
+            long signStart = System.nanoTime();
             try {
                 Long timestamp = Long.parseLong(timestampStr);
                 sysUserService.verifyAkSk(accessKey, sign, timestamp, nonce);
             } catch (NumberFormatException e) {
                 throw new BusinessException(ErrorCodeEnum.PARAM_ERROR, "时间戳格式错误");
+            } finally {
+                context.setSignVerifyNanos(System.nanoTime() - signStart);
             }
         } else {
             // 如果没有签名参数，可能是其他类型的请求，放行
             return true;
         }
 
+        long permissionStart = System.nanoTime();
+        try {
+            return checkPermission(context, response, accessKey, requestPath, method);
+        } finally {
+            context.setPermissionCheckNanos(System.nanoTime() - permissionStart);
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                Object handler, Exception ex) {
+        GatewayContext context = GatewayContext.get(request);
+        if (context != null && log.isDebugEnabled()) {
+            log.debug("[Gateway] 阶段耗时: path={}, signVerify={}us, permissionCheck={}us, handler={}us, total={}ms",
+                    context.getApiPath(), context.getSignVerifyNanos() / 1000, context.getPermissionCheckNanos() / 1000,
+                    context.getHandlerNanos() / 1000, System.currentTimeMillis() - context.getStartTime());
+        }
+    }
+
+    /**
+     * 解析用户与接口并校验调用权限，结果写入上下文
+     */
+    private boolean checkPermission(GatewayContext context, HttpServletResponse response, String accessKey,
+                                    String requestPath, String method) {
         // 3. 根据accessKey获取用户信息
         SysUser user = sysUserService.getByAccessKey(accessKey);
         if (user == null) {
             throw new BusinessException(ErrorCodeEnum.NOT_FOUND, "用户不存在或AK已禁用");
         }
+        context.setUserId(user.getId());
+        context.setAccessKey(accessKey);
+        context.setPermissionType(user.getPermissionType());
+
+        // AK 已通过签名校验，按其权限类型计入AK额度
+        RateLimitResult akResult = rateLimitService.checkAccessKey(accessKey, user.getPermissionType());
+        RateLimitResult result = context.getRateLimitResult() != null
+                ? context.getRateLimitResult().stricter(akResult) : akResult;
+        rateLimitService.writeHeaders(response, result);
+        if (!akResult.isAllowed()) {
+            log.warn("[RateLimit] AK限流拦截: ip={}, path={}, accessKey={}", context.getClientIp(), requestPath, accessKey);
+            throw new BusinessException(ErrorCodeEnum.RATE_LIMIT_EXCEEDED, "访问过于频繁，请稍后再试");
+        }
 
         // 4. 根据请求路径和方法查询接口信息
         com.org.api_common.entity.ApiInfo apiInfo = apiInfoService.getValidApiByPathAndMethod(requestPath, method);
@@ -77,16 +125,11 @@ public class ApiPermissionInterceptor implements HandlerInterceptor {
             // 如果接口不存在，可能是非业务接口，放行（由其他拦截器处理）
             return true;
         }
+        context.setApiId(apiInfo.getId());
+        context.setApiName(apiInfo.getApiName());
 
-        // 5. 查询用户是否有该接口的权限
-        List<com.org.api_common.vo.ApiPermissionVO> permissions = apiPermissionService.getUserApiPermissions(user.getId());
-        
-        boolean hasPermission = permissions.stream()
-                .anyMatch(p -> p.getApiId().equals(apiInfo.getId())
-                        && p.getStatus() == 1
-                        && (p.getExpireTime() == null || p.getExpireTime().isAfter(LocalDateTime.now())));
-
-        if (!hasPermission) {
+        // 5. 校验用户是否有该接口的权限（内存权限索引，不查库）
+        if (!apiPermissionService.hasApiPermission(user.getId(), apiInfo.getId())) {
             throw new BusinessException(ErrorCodeEnum.PERMISSION_DENY, 
                     "接口权限不足，请先开通该接口的调用权限。接口：" + apiInfo.getApiName());
         }
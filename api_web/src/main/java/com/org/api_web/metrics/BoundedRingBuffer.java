@@ -0,0 +1,104 @@
+package com.org.api_web.metrics;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 有界无锁环形队列（每个槽位带序号，入队/出队各一次CAS）
+ * 多生产者 + 单消费者使用；出队同样基于CAS，因此“丢弃最旧”时生产者也可安全出队
+ * 容量向上取整为2的幂
+ */
+public class BoundedRingBuffer<E> {
+
+    private final int mask;
+    private final Object[] elements;
+    /** 槽位序号：等于入队位置表示可写，等于入队位置+1表示可读 */
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    public BoundedRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.mask = size - 1;
+        this.elements = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 入队（队满返回false）
+     */
+    public boolean offer(E element) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    elements[index] = element;
+                    sequences.set(index, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    /**
+     * 出队（队空返回null）
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long pos = head.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - (pos + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    E element = (E) elements[index];
+                    elements[index] = null;
+                    sequences.set(index, pos + mask + 1);
+                    return element;
+                }
+                pos = head.get();
+            } else if (diff < 0) {
+                return null;
+            } else {
+                pos = head.get();
+            }
+        }
+    }
+
+    /**
+     * 批量出队
+     * @return 实际取出的数量
+     */
+    public int drainTo(List<E> target, int maxElements) {
+        int count = 0;
+        while (count < maxElements) {
+            E element = poll();
+            if (element == null) {
+                break;
+            }
+            target.add(element);
+            count++;
+        }
+        return count;
+    }
+
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
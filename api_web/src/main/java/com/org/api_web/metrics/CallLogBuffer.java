@@ -0,0 +1,215 @@
+package com.org.api_web.metrics;
+
+import com.org.api_common.entity.ApiCallLog;
+import com.org.api_service.calllog.CallLogCodec;
+import com.org.api_service.calllog.CallLogQueue;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 调用日志缓冲区
+ * 1. 请求线程只把日志对象放入有界无锁环形队列（一次CAS），不序列化、不访问Redis
+ * 2. 专用刷新线程批量取出、编码（CallLogCodec），一次往返写入数百条（List模式 RPUSH，Stream模式管道 XADD）
+ * 3. Redis写入失败或变慢时转为本地落盘（CallLogSpool），落盘也写不进时队列写满按溢出策略处理，堆内存占用有上限
+ */
+@Slf4j
+@Component
+public class CallLogBuffer {
+
+    /** Redis写入失败后的重试间隔（毫秒） */
+    private static final long RETRY_BACKOFF_MS = 1000;
+
+    @Autowired
+    private CallLogQueue callLogQueue;
+
+    @Autowired
+    private CallLogCodec callLogCodec;
+
+    @Autowired
+    private CallLogSpool callLogSpool;
+
+    /** 缓冲区容量（向上取整为2的幂） */
+    @Value("${api.call-log.buffer.capacity:65536}")
+    private int capacity;
+
+    /** 单次写入最多条数 */
+    @Value("${api.call-log.buffer.batch-size:500}")
+    private int batchSize;
+
+    /** 队列为空时刷新线程的等待间隔（毫秒） */
+    @Value("${api.call-log.buffer.flush-interval-ms:100}")
+    private long flushIntervalMs;
+
+    /** 溢出策略 */
+    @Value("${api.call-log.buffer.overflow-policy:DROP_OLDEST}")
+    private CallLogOverflowPolicy overflowPolicy;
+
+    /** BLOCK 策略最长等待时间（毫秒） */
+    @Value("${api.call-log.buffer.block-timeout-ms:5}")
+    private long blockTimeoutMs;
+
+    private BoundedRingBuffer<ApiCallLog> buffer;
+    private Thread flusher;
+    private volatile boolean running;
+
+    private final LongAdder enqueuedCount = new LongAdder();
+    private final LongAdder droppedOldestCount = new LongAdder();
+    private final LongAdder droppedNewestCount = new LongAdder();
+    private final LongAdder flushedCount = new LongAdder();
+    private final LongAdder flushedBytes = new LongAdder();
+    private final LongAdder flushBatchCount = new LongAdder();
+    private final LongAdder flushFailCount = new LongAdder();
+    private final LongAdder spooledCount = new LongAdder();
+
+    @PostConstruct
+    public void start() {
+        buffer = new BoundedRingBuffer<>(capacity);
+        running = true;
+        flusher = new Thread(this::runFlusher, "call-log-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info("[CallLogBuffer] 启动: capacity={}, batchSize={}, overflowPolicy={}",
+                buffer.capacity(), batchSize, overflowPolicy);
+    }
+
+    /**
+     * 放入一条调用日志（不阻塞，BLOCK策略下最多等待 block-timeout-ms）
+     * @return 是否放入成功
+     */
+    public boolean enqueue(ApiCallLog callLog) {
+        if (buffer.offer(callLog)) {
+            enqueuedCount.increment();
+            LockSupport.unpark(flusher);
+            return true;
+        }
+        switch (overflowPolicy) {
+            case DROP_OLDEST:
+                while (!buffer.offer(callLog)) {
+                    if (buffer.poll() != null) {
+                        droppedOldestCount.increment();
+                    }
+                }
+                enqueuedCount.increment();
+                return true;
+            case BLOCK:
+                LockSupport.unpark(flusher);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(blockTimeoutMs);
+                while (System.nanoTime() < deadline) {
+                    LockSupport.parkNanos(50_000);
+                    if (buffer.offer(callLog)) {
+                        enqueuedCount.increment();
+                        return true;
+                    }
+                }
+                droppedNewestCount.increment();
+                return false;
+            default:
+                droppedNewestCount.increment();
+                return false;
+        }
+    }
+
+    /**
+     * 缓冲区状态
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("capacity", buffer.capacity());
+        stats.put("size", buffer.size());
+        stats.put("overflowPolicy", overflowPolicy);
+        stats.put("enqueuedCount", enqueuedCount.sum());
+        stats.put("droppedOldestCount", droppedOldestCount.sum());
+        stats.put("droppedNewestCount", droppedNewestCount.sum());
+        stats.put("flushedCount", flushedCount.sum());
+        stats.put("codec", callLogCodec.format());
+        stats.put("flushedBytes", flushedBytes.sum());
+        stats.put("flushBatchCount", flushBatchCount.sum());
+        stats.put("flushFailCount", flushFailCount.sum());
+        stats.put("spooledCount", spooledCount.sum());
+        return stats;
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("[CallLogBuffer] 已停止，剩余未写入: {}", buffer.size());
+    }
+
+    private void runFlusher() {
+        List<ApiCallLog> batch = new ArrayList<>(batchSize);
+        while (running || buffer.size() > 0 || !batch.isEmpty()) {
+            if (batch.isEmpty() && buffer.drainTo(batch, batchSize) == 0) {
+                if (!running) {
+                    break;
+                }
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(flushIntervalMs));
+                continue;
+            }
+            if (push(batch)) {
+                batch.clear();
+            } else if (running) {
+                // Redis和本地落盘都写不进（落盘已满或未启用）：保留本批次重试；期间新日志按溢出策略处理
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(RETRY_BACKOFF_MS));
+            } else {
+                log.error("[CallLogBuffer] 关闭时写入失败，丢弃{}条调用日志", batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 写入一批：落盘模式下直接追加到本地段文件；否则写Redis，失败或超过耗时预算时切换为落盘
+     */
+    private boolean push(List<ApiCallLog> batch) {
+        List<byte[]> values = new ArrayList<>(batch.size());
+        long bytes = 0;
+        for (ApiCallLog callLog : batch) {
+            byte[] value = callLogCodec.encode(callLog);
+            values.add(value);
+            bytes += value.length;
+        }
+        if (callLogSpool.isActive() && callLogSpool.append(values)) {
+            spooledCount.add(batch.size());
+            return true;
+        }
+        long start = System.nanoTime();
+        try {
+            callLogQueue.push(values);
+        } catch (Exception e) {
+            flushFailCount.increment();
+            log.error("[CallLogBuffer] 批量写入调用日志失败: size={}", batch.size(), e);
+            callLogSpool.activate("写入Redis失败: " + e.getMessage());
+            if (callLogSpool.append(values)) {
+                spooledCount.add(batch.size());
+                return true;
+            }
+            return false;
+        }
+        long costMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (callLogSpool.overBudget(costMs)) {
+            callLogSpool.activate("写入Redis耗时" + costMs + "ms");
+        }
+        flushedCount.add(batch.size());
+        flushedBytes.add(bytes);
+        flushBatchCount.increment();
+        return true;
+    }
+}
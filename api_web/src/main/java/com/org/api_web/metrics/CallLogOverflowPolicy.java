@@ -0,0 +1,16 @@
+package com.org.api_web.metrics;
+
+/**
+ * 调用日志缓冲区满时的处理策略
+ */
+public enum CallLogOverflowPolicy {
+
+    /** 丢弃最旧的一条，写入新日志 */
+    DROP_OLDEST,
+
+    /** 丢弃新日志 */
+    DROP_NEWEST,
+
+    /** 短暂等待（block-timeout-ms），仍满则丢弃新日志 */
+    BLOCK
+}
@@ -0,0 +1,369 @@
+package com.org.api_web.metrics;
+
+import com.org.api_common.entity.ApiCallLog;
+import com.org.api_service.calllog.CallLogCodec;
+import com.org.api_service.calllog.CallLogQueue;
+import com.org.api_service.service.ApiCallLogService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * 调用日志本地落盘（Redis不可用或变慢时的兜底）
+ * 1. CallLogBuffer 写Redis失败或耗时超过 latency-budget-ms 时切换为落盘模式，之后的批次直接追加到本地段文件
+ * 2. 段文件为内存映射、只追加，写满后滚动到新文件，待回放总量超过 max-bytes 时拒绝写入（退回缓冲区重试）
+ * 3. 回放线程按顺序把段文件写回调用日志队列（或直接写MySQL），耗时恢复正常且全部回放完后退出落盘模式
+ * 4. 已回放位置记录在段文件头部，重启后继续回放上次未完成的文件
+ */
+@Slf4j
+@Component
+public class CallLogSpool {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".spool";
+
+    @Autowired
+    private CallLogQueue callLogQueue;
+
+    @Autowired
+    private CallLogCodec callLogCodec;
+
+    @Autowired
+    private ApiCallLogService apiCallLogService;
+
+    /** 是否启用落盘兜底 */
+    @Value("${api.call-log.spool.enabled:true}")
+    private boolean enabled;
+
+    /** 段文件目录 */
+    @Value("${api.call-log.spool.dir:${java.io.tmpdir}/api-call-log-spool}")
+    private String dir;
+
+    /** 单个段文件大小（字节） */
+    @Value("${api.call-log.spool.segment-bytes:67108864}")
+    private int segmentBytes;
+
+    /** 待回放总大小上限（字节） */
+    @Value("${api.call-log.spool.max-bytes:1073741824}")
+    private long maxBytes;
+
+    /** 单次写Redis耗时超过该值即切换为落盘（毫秒） */
+    @Value("${api.call-log.spool.latency-budget-ms:200}")
+    private long latencyBudgetMs;
+
+    /** 单次回放条数 */
+    @Value("${api.call-log.spool.replay-batch-size:500}")
+    private int replayBatchSize;
+
+    /** 无数据或回放失败时的等待间隔（毫秒） */
+    @Value("${api.call-log.spool.replay-interval-ms:1000}")
+    private long replayIntervalMs;
+
+    /** 回放目标：queue（写回调用日志队列）/ db（直接批量写MySQL） */
+    @Value("${api.call-log.spool.replay-target:queue}")
+    private String replayTarget;
+
+    /** 段文件（最早的在队首，最后一个为当前写入段），访问需持有本对象锁 */
+    private final Deque<SpoolSegment> segments = new ArrayDeque<>();
+    private long nextSequence;
+    private long totalBytes;
+
+    /** 落盘模式：CallLogBuffer 不再访问Redis，直接追加到段文件 */
+    private volatile boolean active;
+    private volatile boolean running;
+    private Thread replayer;
+
+    private final LongAdder spooledCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder replayedCount = new LongAdder();
+    private final LongAdder replayFailCount = new LongAdder();
+    private volatile long activatedCount;
+    private volatile double replayRate;
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            log.info("[CallLogSpool] 已禁用");
+            return;
+        }
+        recover();
+        running = true;
+        replayer = new Thread(this::runReplayer, "call-log-spool-replayer");
+        replayer.setDaemon(true);
+        replayer.start();
+        log.info("[CallLogSpool] 启动: dir={}, segmentBytes={}, maxBytes={}, latencyBudgetMs={}, replayTarget={}",
+                dir, segmentBytes, maxBytes, latencyBudgetMs, replayTarget);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(replayer);
+        try {
+            replayer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            for (SpoolSegment segment : segments) {
+                try {
+                    segment.flush();
+                    segment.close();
+                } catch (IOException e) {
+                    log.error("[CallLogSpool] 关闭段文件失败: {}", segment.path(), e);
+                }
+            }
+            log.info("[CallLogSpool] 已停止，剩余待回放: {} bytes / {} 个段文件", pendingBytes(), segments.size());
+            segments.clear();
+        }
+    }
+
+    /**
+     * 是否处于落盘模式
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * 写Redis耗时是否超出预算
+     */
+    public boolean overBudget(long costMs) {
+        return costMs > latencyBudgetMs;
+    }
+
+    /**
+     * 切换为落盘模式（Redis写入失败或变慢）
+     */
+    public void activate(String reason) {
+        if (!enabled || active) {
+            return;
+        }
+        active = true;
+        activatedCount++;
+        log.warn("[CallLogSpool] 切换为本地落盘: {}", reason);
+    }
+
+    /**
+     * 追加一批已编码的调用日志（空记录解码后也是null，直接跳过）
+     * @return 未启用或超过总大小上限时返回false
+     */
+    public synchronized boolean append(List<byte[]> payloads) {
+        if (!running) {
+            return false;
+        }
+        long bytes = 0;
+        int count = 0;
+        for (byte[] payload : payloads) {
+            if (payload.length > 0) {
+                bytes += 4 + payload.length;
+                count++;
+            }
+        }
+        if (totalBytes + bytes > maxBytes) {
+            rejectedCount.add(payloads.size());
+            return false;
+        }
+        try {
+            for (byte[] payload : payloads) {
+                if (payload.length == 0) {
+                    continue;
+                }
+                SpoolSegment current = segments.peekLast();
+                if (current == null || !current.append(payload)) {
+                    if (current != null) {
+                        current.flush();
+                    }
+                    current = newSegment(Math.max(segmentBytes, SpoolSegment.HEADER_BYTES + 4 + payload.length));
+                    current.append(payload);
+                }
+            }
+        } catch (IOException e) {
+            // 已追加的部分会被回放，未追加的由调用方重试，可能重复但不丢失
+            log.error("[CallLogSpool] 创建段文件失败: dir={}", dir, e);
+            return false;
+        }
+        totalBytes += bytes;
+        spooledCount.add(count);
+        return true;
+    }
+
+    /**
+     * 落盘状态（段文件数、待回放字节数、回放速率）
+     */
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("active", active);
+        stats.put("dir", dir);
+        stats.put("segmentCount", segments.size());
+        stats.put("bytesPending", pendingBytes());
+        stats.put("replayRatePerSecond", Math.round(replayRate));
+        stats.put("replayTarget", replayTarget);
+        stats.put("activatedCount", activatedCount);
+        stats.put("spooledCount", spooledCount.sum());
+        stats.put("rejectedCount", rejectedCount.sum());
+        stats.put("replayedCount", replayedCount.sum());
+        stats.put("replayFailCount", replayFailCount.sum());
+        return stats;
+    }
+
+    private void runReplayer() {
+        while (running) {
+            List<byte[]> batch = new ArrayList<>(replayBatchSize);
+            SpoolSegment segment;
+            int endPos;
+            synchronized (this) {
+                segment = segments.peekFirst();
+                // 写入段滚动后，之前已读完的写入段不会再有新数据
+                while (segment != null && segment.fullyRead() && segment != segments.peekLast()) {
+                    segments.pollFirst();
+                    delete(segment);
+                    segment = segments.peekFirst();
+                }
+                if (segment == null || segment.fullyRead()) {
+                    if (active) {
+                        // 全部回放完成（回放成功说明Redis已恢复），下一批重新尝试写Redis
+                        active = false;
+                        log.info("[CallLogSpool] 回放完成，恢复写入Redis");
+                    }
+                    segment = null;
+                }
+                endPos = segment == null ? 0 : segment.read(replayBatchSize, batch);
+            }
+            if (segment == null) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(replayIntervalMs));
+                continue;
+            }
+            long start = System.nanoTime();
+            try {
+                deliver(batch);
+            } catch (Exception e) {
+                replayFailCount.increment();
+                log.warn("[CallLogSpool] 回放失败，{}ms后重试: {}", replayIntervalMs, e.getMessage());
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(replayIntervalMs));
+                continue;
+            }
+            long costNanos = System.nanoTime() - start;
+            replayedCount.add(batch.size());
+            replayRate = batch.size() * 1e9 / Math.max(1, costNanos);
+            commit(segment, endPos);
+            if (overBudget(TimeUnit.NANOSECONDS.toMillis(costNanos))) {
+                // Redis仍然偏慢，放慢回放，避免与正常流量争抢
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(replayIntervalMs));
+            }
+        }
+    }
+
+    private void deliver(List<byte[]> batch) {
+        if (!"db".equalsIgnoreCase(replayTarget)) {
+            callLogQueue.push(batch);
+            return;
+        }
+        List<ApiCallLog> logs = new ArrayList<>(batch.size());
+        for (byte[] payload : batch) {
+            try {
+                ApiCallLog callLog = callLogCodec.decode(payload);
+                if (callLog != null && callLog.getApiId() != null) {
+                    logs.add(callLog);
+                }
+            } catch (Exception e) {
+                log.error("[CallLogSpool] 解析落盘日志失败，丢弃: {}", CallLogCodec.describe(payload), e);
+            }
+        }
+        if (!logs.isEmpty()) {
+            apiCallLogService.bulkInsert(logs);
+        }
+    }
+
+    /**
+     * 记录回放位置；非当前写入段读完后删除
+     */
+    private synchronized void commit(SpoolSegment segment, int endPos) {
+        int before = segment.pendingBytes();
+        segment.commit(endPos);
+        totalBytes -= before - segment.pendingBytes();
+        if (segment.fullyRead() && segment != segments.peekLast()) {
+            segments.pollFirst();
+            delete(segment);
+        }
+    }
+
+    private void delete(SpoolSegment segment) {
+        try {
+            segment.delete();
+        } catch (IOException e) {
+            log.error("[CallLogSpool] 删除段文件失败: {}", segment.path(), e);
+        }
+    }
+
+    /**
+     * 启动时加载上次未回放完的段文件
+     */
+    private synchronized void recover() throws IOException {
+        Path root = Paths.get(dir);
+        Files.createDirectories(root);
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(root)) {
+            files = stream.filter(p -> {
+                String name = p.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).sorted().toList();
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            nextSequence = Math.max(nextSequence, Long.parseLong(
+                    name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())) + 1);
+            SpoolSegment segment = SpoolSegment.open(file);
+            if (segment == null) {
+                log.error("[CallLogSpool] 段文件损坏，已跳过: {}", file);
+                continue;
+            }
+            if (segment.fullyRead()) {
+                segment.delete();
+                continue;
+            }
+            segments.addLast(segment);
+            totalBytes += segment.pendingBytes();
+        }
+        if (!segments.isEmpty()) {
+            log.warn("[CallLogSpool] 发现上次未回放的调用日志: {} bytes / {} 个段文件", totalBytes, segments.size());
+        }
+    }
+
+    private SpoolSegment newSegment(int size) throws IOException {
+        Path path = Paths.get(dir, String.format("%s%020d%s", SEGMENT_PREFIX, nextSequence++, SEGMENT_SUFFIX));
+        SpoolSegment segment = SpoolSegment.create(path, size);
+        segments.addLast(segment);
+        return segment;
+    }
+
+    private long pendingBytes() {
+        long bytes = 0;
+        for (SpoolSegment segment : segments) {
+            bytes += segment.pendingBytes();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,447 @@
+package com.org.api_web.metrics;
+
+import com.org.api_common.constant.CacheKeyConstants;
+import com.org.api_common.util.LatencyHistogram;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 实时统计本地聚合器
+ * 1. 请求线程只做本地 LongAdder 累加（分段计数，无锁竞争），不访问Redis
+ * 2. 后台按 max-staleness-ms 周期把增量合并为一次管道批量写入日统计HASH
+ * 3. Redis写入频率只与周期内不同key数量有关，与QPS无关；写入失败的增量回填，下个周期重试
+ * 4. 应用关闭时最后刷新一次
+ * 5. 用户日统计为每用户每天一个HASH：总数/成功/失败/耗时，以及按接口的调用次数、失败次数、耗时
+ * 6. 响应时间按接口记录分钟、日两级直方图；每个节点写自己的字段（累计值覆盖写，重试幂等），读取时合并各节点
+ * 7. 调用方AK、客户端IP按接口按天本地去重后 PFADD 到 HyperLogLog（PFADD幂等，失败重试不会重复计数）
+ */
+@Slf4j
+@Component
+public class RealTimeMetricsAggregator {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter MINUTE_FORMATTER = DateTimeFormatter.ofPattern("HHmm");
+
+    /** 节点ID（进程名 + 启动时间，重启后使用新字段，不覆盖重启前写入的直方图） */
+    private static final String NODE_ID = ManagementFactory.getRuntimeMXBean().getName()
+            + "/" + Long.toString(System.currentTimeMillis(), 36);
+
+    /** 日统计保留时间（秒） */
+    private static final long METRICS_TTL_SECONDS = Duration.ofDays(30).getSeconds();
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    /** 最大统计延迟（毫秒），即刷新周期 */
+    @Value("${api.metrics.max-staleness-ms:500}")
+    private long maxStalenessMs;
+
+    /** 分钟直方图保留天数（每接口每天最多1440个字段/节点，保留期外按日直方图统计） */
+    @Value("${api.metrics.latency-minute-retention-days:3}")
+    private int latencyMinuteRetentionDays;
+
+    /** 接口日统计：HASH key -> 计数 */
+    private final ConcurrentHashMap<String, ApiDayCounter> apiDayCounters = new ConcurrentHashMap<>();
+
+    /** 用户日统计：HASH key -> 各字段计数 */
+    private final ConcurrentHashMap<String, UserDayCounter> userDayCounters = new ConcurrentHashMap<>();
+
+    /** 响应时间直方图：本地key -> 分钟/日直方图 */
+    private final ConcurrentHashMap<String, LatencySlot> latencySlots = new ConcurrentHashMap<>();
+
+    /** 去重计数：HLL key -> 本周期新出现的成员（周期内重复调用只PFADD一次） */
+    private final ConcurrentHashMap<String, UniqueBuffer> uniqueBuffers = new ConcurrentHashMap<>();
+
+    /** 当天日期字符串缓存（按epochDay切换，避免每次请求格式化） */
+    private volatile DayStamp day = new DayStamp(LocalDate.now().toEpochDay(), LocalDate.now().format(DATE_FORMATTER));
+
+    /** 当前分钟缓存（按epochMinute切换） */
+    private volatile MinuteStamp minute = minuteStamp(System.currentTimeMillis() / 60_000);
+
+    private final LongAdder recordCount = new LongAdder();
+    private final LongAdder flushCount = new LongAdder();
+    private final LongAdder flushFailCount = new LongAdder();
+    private volatile long lastFlushKeys;
+    private volatile long lastFlushAt;
+
+    /**
+     * 记录一次调用（仅本地累加）
+     */
+    public void record(String apiPath, Long apiId, Long userId, boolean success, long costTime,
+                       String accessKey, String clientIp) {
+        String today = today();
+        ApiDayCounter counter = apiDayCounters.computeIfAbsent(
+                CacheKeyConstants.API_METRICS_API_DAY + ":" + apiPath + ":" + today, k -> new ApiDayCounter(today));
+        counter.total.increment();
+        (success ? counter.success : counter.fail).increment();
+        if (costTime > 0) {
+            counter.cost.add(costTime);
+        }
+        if (userId != null) {
+            userDayCounters.computeIfAbsent(CacheKeyConstants.API_METRICS_USER_DAY + ":" + userId + ":" + today,
+                    k -> new UserDayCounter(today)).record(apiId, success, costTime);
+        }
+        recordLatency(apiPath, costTime);
+        recordUnique(CacheKeyConstants.API_METRICS_UNIQUE_AK, apiPath, today, accessKey);
+        recordUnique(CacheKeyConstants.API_METRICS_UNIQUE_IP, apiPath, today, clientIp);
+        recordCount.increment();
+    }
+
+    /**
+     * 周期刷新（周期即最大统计延迟）
+     */
+    @Scheduled(fixedDelayString = "${api.metrics.max-staleness-ms:500}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        log.info("[MetricsAggregator] 应用关闭，刷新剩余统计");
+        flush();
+    }
+
+    /**
+     * 取出各计数器增量，一次管道批量写入Redis
+     */
+    public synchronized void flush() {
+        List<Delta> deltas = drain();
+        List<LatencyWrite> latencyWrites = drainLatency();
+        List<UniqueAdd> uniqueAdds = drainUnique();
+        if (deltas.isEmpty() && latencyWrites.isEmpty() && uniqueAdds.isEmpty()) {
+            return;
+        }
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                for (Delta delta : deltas) {
+                    for (int i = 0; i < delta.fields.length; i++) {
+                        if (delta.values[i] != 0) {
+                            conn.hIncrBy(delta.key, delta.fields[i], delta.values[i]);
+                        }
+                    }
+                    conn.expire(delta.key, METRICS_TTL_SECONDS);
+                }
+                for (LatencyWrite write : latencyWrites) {
+                    byte[] key = write.slot.key.getBytes(StandardCharsets.UTF_8);
+                    connection.hashCommands().hSet(key, write.slot.field.getBytes(StandardCharsets.UTF_8), write.data);
+                    connection.keyCommands().expire(key, write.slot.minuteLevel
+                            ? Duration.ofDays(Math.max(1, latencyMinuteRetentionDays)).getSeconds() : METRICS_TTL_SECONDS);
+                }
+                for (UniqueAdd add : uniqueAdds) {
+                    conn.pfAdd(add.key, add.members);
+                    conn.expire(add.key, METRICS_TTL_SECONDS);
+                }
+                return null;
+            });
+            flushCount.increment();
+            lastFlushKeys = deltas.size() + latencyWrites.size() + uniqueAdds.size();
+            lastFlushAt = System.currentTimeMillis();
+        } catch (Exception e) {
+            flushFailCount.increment();
+            log.error("[MetricsAggregator] 刷新统计到Redis失败，增量回填等待下次刷新: keys={}",
+                    deltas.size() + latencyWrites.size() + uniqueAdds.size(), e);
+            restore(deltas);
+            // 直方图为累计值覆盖写，重新标记即可
+            latencyWrites.forEach(write -> write.slot.dirty = true);
+            restoreUnique(uniqueAdds);
+        }
+    }
+
+    /**
+     * 聚合器状态
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxStalenessMs", maxStalenessMs);
+        stats.put("recordCount", recordCount.sum());
+        stats.put("flushCount", flushCount.sum());
+        stats.put("flushFailCount", flushFailCount.sum());
+        stats.put("pendingApiKeys", apiDayCounters.size());
+        stats.put("pendingUserKeys", userDayCounters.size());
+        stats.put("latencySlots", latencySlots.size());
+        stats.put("pendingUniqueKeys", uniqueBuffers.size());
+        stats.put("lastFlushKeys", lastFlushKeys);
+        stats.put("lastFlushAt", lastFlushAt);
+        return stats;
+    }
+
+    private List<Delta> drain() {
+        String today = today();
+        List<Delta> deltas = new ArrayList<>();
+        apiDayCounters.forEach((key, counter) -> {
+            long total = counter.total.sumThenReset();
+            long success = counter.success.sumThenReset();
+            long fail = counter.fail.sumThenReset();
+            long cost = counter.cost.sumThenReset();
+            if (total != 0 || success != 0 || fail != 0 || cost != 0) {
+                deltas.add(new Delta(key, new String[]{CacheKeyConstants.METRICS_FIELD_TOTAL,
+                        CacheKeyConstants.METRICS_FIELD_SUCCESS, CacheKeyConstants.METRICS_FIELD_FAIL,
+                        CacheKeyConstants.METRICS_FIELD_COST}, new long[]{total, success, fail, cost}));
+            } else if (!today.equals(counter.day)) {
+                // 跨天后旧日期计数器已无增量，移除
+                apiDayCounters.remove(key, counter);
+            }
+        });
+        userDayCounters.forEach((key, counter) -> {
+            List<String> fields = new ArrayList<>();
+            List<Long> values = new ArrayList<>();
+            counter.fields.forEach((field, adder) -> {
+                long value = adder.sumThenReset();
+                if (value != 0) {
+                    fields.add(field);
+                    values.add(value);
+                }
+            });
+            if (!fields.isEmpty()) {
+                deltas.add(new Delta(key, fields.toArray(new String[0]),
+                        values.stream().mapToLong(Long::longValue).toArray()));
+            } else if (!today.equals(counter.day)) {
+                userDayCounters.remove(key, counter);
+            }
+        });
+        return deltas;
+    }
+
+    private void restore(List<Delta> deltas) {
+        for (Delta delta : deltas) {
+            String dayText = delta.key.substring(delta.key.lastIndexOf(':') + 1);
+            if (delta.key.startsWith(CacheKeyConstants.API_METRICS_USER_DAY)) {
+                UserDayCounter counter = userDayCounters.computeIfAbsent(delta.key, k -> new UserDayCounter(dayText));
+                for (int i = 0; i < delta.fields.length; i++) {
+                    counter.add(delta.fields[i], delta.values[i]);
+                }
+                continue;
+            }
+            ApiDayCounter counter = apiDayCounters.computeIfAbsent(delta.key, k -> new ApiDayCounter(dayText));
+            counter.total.add(delta.values[0]);
+            counter.success.add(delta.values[1]);
+            counter.fail.add(delta.values[2]);
+            counter.cost.add(delta.values[3]);
+        }
+    }
+
+    /**
+     * 记录响应时间到当前分钟、当天的直方图
+     */
+    private void recordLatency(String apiPath, long costTime) {
+        MinuteStamp stamp = currentMinute();
+        String minuteKey = CacheKeyConstants.API_METRICS_LATENCY_MINUTE + ":" + apiPath + ":" + stamp.dayText;
+        latencySlots.computeIfAbsent(minuteKey + "|" + stamp.minuteText,
+                k -> new LatencySlot(minuteKey, stamp.minuteText + "|" + NODE_ID, true, stamp.epochMinute)).record(costTime);
+        String dayKey = CacheKeyConstants.API_METRICS_LATENCY_DAY + ":" + apiPath + ":" + stamp.dayText;
+        latencySlots.computeIfAbsent(dayKey,
+                k -> new LatencySlot(dayKey, NODE_ID, false, stamp.dayEndEpochMinute)).record(costTime);
+    }
+
+    /**
+     * 取出有新数据的直方图（序列化当前累计值）；已结束且无新数据的直方图移出本地
+     */
+    private List<LatencyWrite> drainLatency() {
+        long nowMinute = currentMinute().epochMinute;
+        List<LatencyWrite> writes = new ArrayList<>();
+        latencySlots.forEach((localKey, slot) -> {
+            if (slot.dirty) {
+                slot.dirty = false;
+                writes.add(new LatencyWrite(slot, slot.histogram.toBytes()));
+            } else if (slot.lastEpochMinute < nowMinute - 1) {
+                latencySlots.remove(localKey, slot);
+            }
+        });
+        return writes;
+    }
+
+    /**
+     * 记录去重成员（为空不记录）
+     */
+    private void recordUnique(String prefix, String apiPath, String today, String member) {
+        if (member == null || member.isEmpty()) {
+            return;
+        }
+        uniqueBuffers.computeIfAbsent(prefix + ":" + apiPath + ":" + today, k -> new UniqueBuffer(today))
+                .members.add(member);
+    }
+
+    /**
+     * 取出各HLL本周期新增成员；跨天后无新成员的旧日期缓冲移除
+     */
+    private List<UniqueAdd> drainUnique() {
+        String today = today();
+        List<UniqueAdd> adds = new ArrayList<>();
+        uniqueBuffers.forEach((key, buffer) -> {
+            List<String> members = new ArrayList<>();
+            // 逐个移除而不是整体替换集合，避免与并发写入竞争丢失成员
+            for (Iterator<String> it = buffer.members.iterator(); it.hasNext(); ) {
+                members.add(it.next());
+                it.remove();
+            }
+            if (!members.isEmpty()) {
+                adds.add(new UniqueAdd(key, members.toArray(new String[0])));
+            } else if (!today.equals(buffer.day)) {
+                uniqueBuffers.remove(key, buffer);
+            }
+        });
+        return adds;
+    }
+
+    private void restoreUnique(List<UniqueAdd> adds) {
+        for (UniqueAdd add : adds) {
+            String dayText = add.key.substring(add.key.lastIndexOf(':') + 1);
+            Set<String> members = uniqueBuffers.computeIfAbsent(add.key, k -> new UniqueBuffer(dayText)).members;
+            members.addAll(Arrays.asList(add.members));
+        }
+    }
+
+    private MinuteStamp currentMinute() {
+        MinuteStamp stamp = minute;
+        long epochMinute = System.currentTimeMillis() / 60_000;
+        if (epochMinute != stamp.epochMinute) {
+            stamp = minuteStamp(epochMinute);
+            minute = stamp;
+        }
+        return stamp;
+    }
+
+    private static MinuteStamp minuteStamp(long epochMinute) {
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochSecond(epochMinute * 60), ZoneId.systemDefault());
+        long dayEnd = time.toLocalDate().plusDays(1).atStartOfDay(ZoneId.systemDefault()).toEpochSecond() / 60 - 1;
+        return new MinuteStamp(epochMinute, time.toLocalDate().format(DATE_FORMATTER), time.format(MINUTE_FORMATTER), dayEnd);
+    }
+
+    private String today() {
+        DayStamp stamp = day;
+        LocalDate now = LocalDate.now();
+        if (now.toEpochDay() != stamp.epochDay) {
+            stamp = new DayStamp(now.toEpochDay(), now.format(DATE_FORMATTER));
+            day = stamp;
+        }
+        return stamp.text;
+    }
+
+    private record DayStamp(long epochDay, String text) {
+    }
+
+    private record MinuteStamp(long epochMinute, String dayText, String minuteText, long dayEndEpochMinute) {
+    }
+
+    /**
+     * 单个接口单个周期（分钟或天）的本节点直方图
+     */
+    private static final class LatencySlot {
+        private final String key;
+        private final String field;
+        private final boolean minuteLevel;
+        /** 周期最后一分钟（epochMinute），之后无新数据即可移出本地 */
+        private final long lastEpochMinute;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private volatile boolean dirty;
+
+        private LatencySlot(String key, String field, boolean minuteLevel, long lastEpochMinute) {
+            this.key = key;
+            this.field = field;
+            this.minuteLevel = minuteLevel;
+            this.lastEpochMinute = lastEpochMinute;
+        }
+
+        private void record(long costTime) {
+            histogram.record(costTime);
+            if (!dirty) {
+                dirty = true;
+            }
+        }
+    }
+
+    private record LatencyWrite(LatencySlot slot, byte[] data) {
+    }
+
+    /**
+     * 单个HLL key的本地去重缓冲
+     */
+    private static final class UniqueBuffer {
+        private final String day;
+        private final Set<String> members = ConcurrentHashMap.newKeySet();
+
+        private UniqueBuffer(String day) {
+            this.day = day;
+        }
+    }
+
+    private record UniqueAdd(String key, String[] members) {
+    }
+
+    /**
+     * 单个接口单日的分段计数
+     */
+    private static final class ApiDayCounter {
+        private final String day;
+        private final LongAdder total = new LongAdder();
+        private final LongAdder success = new LongAdder();
+        private final LongAdder fail = new LongAdder();
+        private final LongAdder cost = new LongAdder();
+
+        private ApiDayCounter(String day) {
+            this.day = day;
+        }
+    }
+
+    /**
+     * 单个用户单日的分段计数（字段名即HASH字段名）
+     */
+    private static final class UserDayCounter {
+        private final String day;
+        private final ConcurrentHashMap<String, LongAdder> fields = new ConcurrentHashMap<>();
+
+        private UserDayCounter(String day) {
+            this.day = day;
+        }
+
+        private void record(Long apiId, boolean success, long costTime) {
+            add(CacheKeyConstants.METRICS_FIELD_TOTAL, 1);
+            add(success ? CacheKeyConstants.METRICS_FIELD_SUCCESS : CacheKeyConstants.METRICS_FIELD_FAIL, 1);
+            if (costTime > 0) {
+                add(CacheKeyConstants.METRICS_FIELD_COST, costTime);
+            }
+            if (apiId != null) {
+                add(CacheKeyConstants.METRICS_FIELD_API_TOTAL_PREFIX + apiId, 1);
+                if (!success) {
+                    add(CacheKeyConstants.METRICS_FIELD_API_FAIL_PREFIX + apiId, 1);
+                }
+                if (costTime > 0) {
+                    add(CacheKeyConstants.METRICS_FIELD_API_COST_PREFIX + apiId, costTime);
+                }
+            }
+        }
+
+        private void add(String field, long value) {
+            fields.computeIfAbsent(field, k -> new LongAdder()).add(value);
+        }
+    }
+
+    private record Delta(String key, String[] fields, long[] values) {
+    }
+}
@@ -0,0 +1,187 @@
+package com.org.api_web.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * 调用日志落盘段文件（内存映射，只追加）
+ * <pre>
+ * 头部：magic(4) 已回放位置(4)
+ * 记录：长度(4) + 内容，长度为0表示后面尚未写入（文件创建时按段大小预分配，内容全为0）
+ * </pre>
+ * 先写内容再写长度，进程崩溃时最多丢失最后一条未写完的记录；已回放位置每批回放成功后更新，重启后从该位置继续
+ * 非线程安全，由 CallLogSpool 加锁访问；删除时立即解除映射，之后不可再访问
+ */
+@Slf4j
+class SpoolSegment {
+
+    private static final int MAGIC = 0x43_4C_53_31;
+    static final int HEADER_BYTES = 8;
+    private static final int READ_POS_OFFSET = 4;
+
+    /** sun.misc.Unsafe#invokeCleaner（JDK 9+），不可用时退回等GC释放映射 */
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.warn("[CallLogSpool] 无法显式解除内存映射，段文件删除后映射将在GC时释放: {}", e.toString());
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private int writePos;
+    private int readPos;
+
+    private SpoolSegment(Path path, FileChannel channel, MappedByteBuffer buffer, int writePos, int readPos) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = buffer.capacity();
+        this.writePos = writePos;
+        this.readPos = readPos;
+    }
+
+    /**
+     * 新建段文件
+     */
+    static SpoolSegment create(Path path, int size) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(READ_POS_OFFSET, HEADER_BYTES);
+        return new SpoolSegment(path, channel, buffer, HEADER_BYTES, HEADER_BYTES);
+    }
+
+    /**
+     * 打开已有段文件（重启恢复）：扫描到第一条未写完的记录为止
+     * @return 文件损坏时返回null
+     */
+    static SpoolSegment open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+            channel.close();
+            return null;
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        int readPos = buffer.getInt(READ_POS_OFFSET);
+        if (buffer.getInt(0) != MAGIC || readPos < HEADER_BYTES || readPos > size) {
+            channel.close();
+            return null;
+        }
+        int writePos = HEADER_BYTES;
+        while (writePos + 4 <= size) {
+            int length = buffer.getInt(writePos);
+            if (length <= 0 || writePos + 4L + length > size) {
+                break;
+            }
+            writePos += 4 + length;
+        }
+        return new SpoolSegment(path, channel, buffer, writePos, Math.min(readPos, writePos));
+    }
+
+    /**
+     * 追加一条记录（长度0在重启扫描时表示数据结束，不允许写入空记录）
+     * @return 剩余空间不足返回false
+     */
+    boolean append(byte[] payload) {
+        if (payload.length == 0) {
+            throw new IllegalArgumentException("spool record must not be empty");
+        }
+        if (writePos + 4L + payload.length > capacity) {
+            return false;
+        }
+        buffer.put(writePos + 4, payload);
+        buffer.putInt(writePos, payload.length);
+        writePos += 4 + payload.length;
+        return true;
+    }
+
+    /**
+     * 从已回放位置开始读取（不移动位置，回放成功后调用 commit）
+     * @param out 读取的记录
+     * @return 读到的末尾位置
+     */
+    int read(int maxCount, List<byte[]> out) {
+        int pos = readPos;
+        while (out.size() < maxCount && pos < writePos) {
+            int length = buffer.getInt(pos);
+            byte[] payload = new byte[length];
+            buffer.get(pos + 4, payload);
+            out.add(payload);
+            pos += 4 + length;
+        }
+        return pos;
+    }
+
+    void commit(int newReadPos) {
+        readPos = newReadPos;
+        buffer.putInt(READ_POS_OFFSET, newReadPos);
+    }
+
+    boolean fullyRead() {
+        return readPos >= writePos;
+    }
+
+    int pendingBytes() {
+        return writePos - readPos;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    void flush() {
+        buffer.force();
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * 关闭、解除映射并删除文件
+     * 64MB 的映射若等GC释放，回放较快时会累积大量已删除但仍占用地址空间和页缓存的文件
+     */
+    void delete() throws IOException {
+        channel.close();
+        unmap();
+        Files.deleteIfExists(path);
+    }
+
+    private void unmap() {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (ReflectiveOperationException e) {
+            log.warn("[CallLogSpool] 解除内存映射失败: {}", path, e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.org.api_web.ratelimit;
+
+/**
+ * 限流算法
+ */
+public enum RateLimitAlgorithm {
+    /** 令牌桶：允许窗口内突发到桶容量，之后按固定速率补充 */
+    TOKEN_BUCKET,
+    /** 滑动窗口日志：任意连续窗口内严格不超过限额，无整点边界突刺 */
+    SLIDING_WINDOW;
+
+    /**
+     * 按名称解析（大小写不敏感），无法识别时返回默认值
+     */
+    public static RateLimitAlgorithm of(String name, RateLimitAlgorithm defaultAlgorithm) {
+        if (name == null || name.isBlank()) {
+            return defaultAlgorithm;
+        }
+        for (RateLimitAlgorithm algorithm : values()) {
+            if (algorithm.name().equalsIgnoreCase(name.trim())) {
+                return algorithm;
+            }
+        }
+        return defaultAlgorithm;
+    }
+}
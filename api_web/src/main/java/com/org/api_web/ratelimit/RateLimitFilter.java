@@ -0,0 +1,68 @@
+package com.org.api_web.ratelimit;
+
+import com.alibaba.fastjson2.JSON;
+import com.org.api_admin_service.service.ApiInfoService;
+import com.org.api_common.entity.ApiInfo;
+import com.org.api_common.result.Result;
+import com.org.api_web.context.GatewayContext;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 网关限流过滤器（注册在 Spring MVC 拦截器之前）
+ * 在签名校验、nonce写入、查库之前完成 IP / 全局限流，超限请求不消耗任何认证开销
+ * 1. 此时AK尚未校验，不按AK计数（否则可用别人的AK发未签名请求耗尽其额度），AK限流见 ApiPermissionInterceptor
+ * 2. 接口级规则来自内存路由表
+ * 3. 判定结果存入 GatewayContext，签名校验后的AK限流与之合并输出响应头
+ */
+@Slf4j
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private RateLimitService rateLimitService;
+
+    @Autowired
+    private ApiInfoService apiInfoService;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        // OPTIONS 预检请求直接放行
+        if ("OPTIONS".equalsIgnoreCase(request.getMethod())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        GatewayContext context = GatewayContext.getOrCreate(request);
+        ApiInfo apiInfo = apiInfoService.getValidApiByPathAndMethod(context.getApiPath(), context.getMethod());
+
+        RateLimitResult result = rateLimitService.checkRequest(context.getClientIp(), context.getApiPath(), apiInfo);
+        context.setRateLimitResult(result);
+        rateLimitService.writeHeaders(response, result);
+        if (!result.isAllowed()) {
+            log.warn("[RateLimit] 限流拦截: ip={}, path={}", context.getClientIp(), context.getApiPath());
+            writeRejected(response);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * 输出限流响应（沿用统一返回格式：HTTP 200 + code 429）
+     */
+    private void writeRejected(HttpServletResponse response) throws IOException {
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentType("application/json;charset=UTF-8");
+        response.getWriter().write(JSON.toJSONString(Result.fail(429, "访问过于频繁，请稍后再试")));
+    }
+}
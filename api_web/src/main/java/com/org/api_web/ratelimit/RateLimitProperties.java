@@ -0,0 +1,43 @@
+package com.org.api_web.ratelimit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 限流配置（api.rate-limit.*）
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "api.rate-limit")
+public class RateLimitProperties {
+
+    /** 是否启用限流 */
+    private boolean enabled = true;
+
+    /** 默认算法（接口未单独配置时使用） */
+    private RateLimitAlgorithm algorithm = RateLimitAlgorithm.SLIDING_WINDOW;
+
+    /** 默认窗口（秒） */
+    private int windowSeconds = 60;
+
+    /** 单IP对单接口在窗口内的默认限额（接口配置了 rate_limit_count 时以接口为准） */
+    private int ipLimit = 60;
+
+    /** 单AK在窗口内的默认总限额（权限类型未在 tierLimits 中配置时使用；签名校验通过后才计数） */
+    private int akLimit = 600;
+
+    /** 按AK权限类型（permissionType）分级的窗口内总限额，未配置的等级不限 */
+    private Map<Integer, Integer> tierLimits = new HashMap<>(Map.of(1, 600, 2, 1200, 3, 6000));
+
+    /** 全网关窗口内总限额（令牌桶，0表示不限） */
+    private int globalLimit = 0;
+
+    /** 限流过滤器拦截的路径 */
+    private List<String> urlPatterns = new ArrayList<>(List.of("/api/business/*"));
+}
@@ -0,0 +1,44 @@
+package com.org.api_web.ratelimit;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 单次限流判定结果（用于输出 X-RateLimit-* / Retry-After 响应头）
+ */
+@Getter
+@AllArgsConstructor
+public class RateLimitResult {
+
+    /** Redis不可用等情况下的放行结果（不输出限流头） */
+    public static final RateLimitResult UNLIMITED = new RateLimitResult(true, -1, -1, 0);
+
+    /** 是否放行 */
+    private final boolean allowed;
+    /** 限额 */
+    private final long limit;
+    /** 剩余次数 */
+    private final long remaining;
+    /** 放行时为额度恢复所需毫秒；拒绝时为建议重试等待毫秒 */
+    private final long resetMillis;
+
+    public boolean isUnlimited() {
+        return limit < 0;
+    }
+
+    /**
+     * 取更严格的结果：拒绝优先，其次剩余次数更少者
+     */
+    public RateLimitResult stricter(RateLimitResult other) {
+        if (other == null || other.isUnlimited()) {
+            return this;
+        }
+        if (this.isUnlimited()) {
+            return other;
+        }
+        if (this.allowed != other.allowed) {
+            return this.allowed ? other : this;
+        }
+        return other.remaining < this.remaining ? other : this;
+    }
+}
@@ -0,0 +1,18 @@
+package com.org.api_web.ratelimit;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 限流规则：窗口内允许 limit 次请求
+ */
+@Getter
+@AllArgsConstructor
+public class RateLimitRule {
+    /** 限流算法 */
+    private final RateLimitAlgorithm algorithm;
+    /** 窗口内允许的请求数（令牌桶即桶容量） */
+    private final int limit;
+    /** 窗口长度（秒） */
+    private final int windowSeconds;
+}
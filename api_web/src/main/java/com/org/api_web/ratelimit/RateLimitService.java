@@ -0,0 +1,136 @@
+package com.org.api_web.ratelimit;
+
+import com.org.api_common.constant.CacheKeyConstants;
+import com.org.api_common.entity.ApiInfo;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 网关限流策略：决定对哪些维度、按什么规则限流
+ * 1. IP + 接口：接口配置了 rate_limit_* 时按接口规则，否则按默认 ip-limit
+ * 2. 全局：整个网关窗口内总限额（令牌桶，单key O(1)）
+ * 3. AK：按 permissionType 分级的窗口内总限额（权限类型未知时按 ak-limit）
+ * 1、2 在认证前由 RateLimitFilter 判定；3 只在签名校验通过后由 ApiPermissionInterceptor 判定，
+ * 否则任何人拿到（或猜到）别人的AK，用未签名请求就能耗尽对方的额度
+ * 依次判定，任一维度拒绝即停止，被拒请求不再消耗后续维度额度
+ */
+@Component
+public class RateLimitService {
+
+    public static final String HEADER_LIMIT = "X-RateLimit-Limit";
+    public static final String HEADER_REMAINING = "X-RateLimit-Remaining";
+    public static final String HEADER_RESET = "X-RateLimit-Reset";
+    public static final String HEADER_RETRY_AFTER = "Retry-After";
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Autowired
+    private RateLimitProperties properties;
+
+    private final LongAdder allowedCount = new LongAdder();
+    private final LongAdder ipRejectedCount = new LongAdder();
+    private final LongAdder akRejectedCount = new LongAdder();
+    private final LongAdder globalRejectedCount = new LongAdder();
+
+    /**
+     * 认证前的限流：IP + 接口、全局，不依赖请求携带的（尚未校验的）AK
+     * @param apiInfo 已注册的接口（可为null）
+     * @return 最严格维度的判定结果
+     */
+    public RateLimitResult checkRequest(String clientIp, String apiPath, ApiInfo apiInfo) {
+        if (!properties.isEnabled()) {
+            return RateLimitResult.UNLIMITED;
+        }
+
+        String ipKey = CacheKeyConstants.IP_LIMIT_PREFIX + clientIp + ":" + apiPath;
+        RateLimitResult result = rateLimiter.tryAcquire(ipKey, apiRule(apiInfo));
+        if (!result.isAllowed()) {
+            ipRejectedCount.increment();
+            return result;
+        }
+
+        if (properties.getGlobalLimit() > 0) {
+            RateLimitRule globalRule = new RateLimitRule(RateLimitAlgorithm.TOKEN_BUCKET,
+                    properties.getGlobalLimit(), properties.getWindowSeconds());
+            result = result.stricter(rateLimiter.tryAcquire(CacheKeyConstants.GLOBAL_LIMIT_KEY, globalRule));
+            if (!result.isAllowed()) {
+                globalRejectedCount.increment();
+                return result;
+            }
+        }
+
+        allowedCount.increment();
+        return result;
+    }
+
+    /**
+     * AK 分级限流，只能在签名校验通过后调用
+     * @param accessKey 已校验的调用方AK
+     * @param permissionType AK权限类型（可为null）
+     */
+    public RateLimitResult checkAccessKey(String accessKey, Integer permissionType) {
+        if (!properties.isEnabled() || accessKey == null) {
+            return RateLimitResult.UNLIMITED;
+        }
+        Integer tierLimit = permissionType != null ? properties.getTierLimits().get(permissionType) : null;
+        int akLimit = tierLimit != null ? tierLimit : properties.getAkLimit();
+        if (akLimit <= 0) {
+            return RateLimitResult.UNLIMITED;
+        }
+        RateLimitRule akRule = new RateLimitRule(properties.getAlgorithm(), akLimit, properties.getWindowSeconds());
+        RateLimitResult result = rateLimiter.tryAcquire(CacheKeyConstants.AK_LIMIT_PREFIX + accessKey, akRule);
+        if (!result.isAllowed()) {
+            akRejectedCount.increment();
+        }
+        return result;
+    }
+
+    /**
+     * 输出标准限流响应头
+     */
+    public void writeHeaders(HttpServletResponse response, RateLimitResult result) {
+        if (response == null || result == null || result.isUnlimited()) {
+            return;
+        }
+        long resetSeconds = (result.getResetMillis() + 999) / 1000;
+        response.setHeader(HEADER_LIMIT, String.valueOf(result.getLimit()));
+        response.setHeader(HEADER_REMAINING, String.valueOf(Math.max(0, result.getRemaining())));
+        response.setHeader(HEADER_RESET, String.valueOf(resetSeconds));
+        if (!result.isAllowed()) {
+            response.setHeader(HEADER_RETRY_AFTER, String.valueOf(Math.max(1, resetSeconds)));
+        }
+    }
+
+    /**
+     * 限流统计（放行/各维度拒绝次数）
+     */
+    public Map<String, Object> stats() {
+        long ipRejected = ipRejectedCount.sum();
+        long akRejected = akRejectedCount.sum();
+        long globalRejected = globalRejectedCount.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", properties.isEnabled());
+        stats.put("allowedCount", allowedCount.sum());
+        stats.put("rejectedCount", ipRejected + akRejected + globalRejected);
+        stats.put("ipRejectedCount", ipRejected);
+        stats.put("akRejectedCount", akRejected);
+        stats.put("globalRejectedCount", globalRejected);
+        return stats;
+    }
+
+    private RateLimitRule apiRule(ApiInfo apiInfo) {
+        if (apiInfo != null && apiInfo.getRateLimitCount() != null && apiInfo.getRateLimitCount() > 0) {
+            int window = apiInfo.getRateLimitWindow() != null && apiInfo.getRateLimitWindow() > 0
+                    ? apiInfo.getRateLimitWindow() : properties.getWindowSeconds();
+            return new RateLimitRule(RateLimitAlgorithm.of(apiInfo.getRateLimitAlgorithm(), properties.getAlgorithm()),
+                    apiInfo.getRateLimitCount(), window);
+        }
+        return new RateLimitRule(properties.getAlgorithm(), properties.getIpLimit(), properties.getWindowSeconds());
+    }
+}
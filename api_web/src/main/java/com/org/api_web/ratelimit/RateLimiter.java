@@ -0,0 +1,15 @@
+package com.org.api_web.ratelimit;
+
+/**
+ * 限流引擎
+ */
+public interface RateLimiter {
+
+    /**
+     * 尝试获取一次调用额度（原子操作）
+     * @param key 限流维度key
+     * @param rule 限流规则
+     * @return 判定结果
+     */
+    RateLimitResult tryAcquire(String key, RateLimitRule rule);
+}
@@ -0,0 +1,68 @@
+package com.org.api_web.ratelimit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 基于Redis Lua脚本的限流引擎：判定 + 计数 + 过期在一次往返内原子完成
+ * Redis异常时放行（限流不应成为可用性瓶颈）
+ */
+@Slf4j
+@Component
+public class RedisLuaRateLimiter implements RateLimiter {
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> SLIDING_WINDOW_SCRIPT =
+            new DefaultRedisScript<>(loadScript("lua/rate_limit_sliding_window.lua"), List.class);
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> TOKEN_BUCKET_SCRIPT =
+            new DefaultRedisScript<>(loadScript("lua/rate_limit_token_bucket.lua"), List.class);
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public RateLimitResult tryAcquire(String key, RateLimitRule rule) {
+        long windowMillis = rule.getWindowSeconds() * 1000L;
+        try {
+            List<Long> reply;
+            if (rule.getAlgorithm() == RateLimitAlgorithm.TOKEN_BUCKET) {
+                reply = redisTemplate.execute(TOKEN_BUCKET_SCRIPT, Collections.singletonList(key),
+                        String.valueOf(rule.getLimit()), String.valueOf(rule.getLimit()), String.valueOf(windowMillis));
+            } else {
+                // 成员需唯一：同一毫秒内的多次请求也要分别计数
+                String member = System.nanoTime() + "-" + ThreadLocalRandom.current().nextLong();
+                reply = redisTemplate.execute(SLIDING_WINDOW_SCRIPT, Collections.singletonList(key),
+                        String.valueOf(rule.getLimit()), String.valueOf(windowMillis), member);
+            }
+            if (reply == null || reply.size() < 3) {
+                return RateLimitResult.UNLIMITED;
+            }
+            return new RateLimitResult(reply.get(0) == 1L, rule.getLimit(), reply.get(1), reply.get(2));
+        } catch (Exception e) {
+            log.warn("[RateLimit] 限流脚本执行失败，本次放行: key={}, error={}", key, e.getMessage());
+            return RateLimitResult.UNLIMITED;
+        }
+    }
+
+    private static String loadScript(String path) {
+        try {
+            return new String(new ClassPathResource(path).getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("加载限流脚本失败: " + path, e);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+-- 滑动窗口日志限流（ZSET，成员为每次放行请求，分值为毫秒时间戳）
+-- KEYS[1] 限流key
+-- ARGV[1] 窗口内允许的请求数  ARGV[2] 窗口长度（毫秒）  ARGV[3] 本次请求的唯一成员
+-- 返回 {是否放行(1/0), 剩余次数, 距窗口内最早请求过期的毫秒数}
+local key = KEYS[1]
+local limit = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+
+-- 脚本内使用TIME后写入，旧版本Redis需开启按效果复制
+if redis.replicate_commands then
+    redis.replicate_commands()
+end
+local t = redis.call('TIME')
+local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000)
+
+redis.call('ZREMRANGEBYSCORE', key, '-inf', now - window)
+local count = redis.call('ZCARD', key)
+
+if count < limit then
+    redis.call('ZADD', key, now, ARGV[3])
+    redis.call('PEXPIRE', key, window)
+    local oldest = redis.call('ZRANGE', key, 0, 0, 'WITHSCORES')
+    return {1, limit - count - 1, tonumber(oldest[2]) + window - now}
+end
+
+local oldest = redis.call('ZRANGE', key, 0, 0, 'WITHSCORES')
+local retry = window
+if oldest[2] then
+    retry = tonumber(oldest[2]) + window - now
+end
+return {0, 0, retry}
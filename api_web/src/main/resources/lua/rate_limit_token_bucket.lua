@@ -0,0 +1,39 @@
+-- 令牌桶限流（HASH：tokens 当前令牌数，ts 上次补充时间毫秒）
+-- KEYS[1] 限流key
+-- ARGV[1] 桶容量  ARGV[2] 每个窗口补充的令牌数  ARGV[3] 窗口长度（毫秒）
+-- 返回 {是否放行(1/0), 剩余令牌数, 放行时为补满所需毫秒/拒绝时为下一个令牌所需毫秒}
+local key = KEYS[1]
+local capacity = tonumber(ARGV[1])
+local rate = tonumber(ARGV[2]) / tonumber(ARGV[3])
+
+-- 脚本内使用TIME后写入，旧版本Redis需开启按效果复制
+if redis.replicate_commands then
+    redis.replicate_commands()
+end
+local t = redis.call('TIME')
+local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000)
+
+local state = redis.call('HMGET', key, 'tokens', 'ts')
+local tokens = tonumber(state[1])
+local ts = tonumber(state[2])
+if tokens == nil then
+    tokens = capacity
+    ts = now
+end
+
+tokens = math.min(capacity, tokens + math.max(0, now - ts) * rate)
+
+local allowed = 0
+if tokens >= 1 then
+    tokens = tokens - 1
+    allowed = 1
+end
+
+redis.call('HSET', key, 'tokens', tostring(tokens), 'ts', now)
+local ttl = math.ceil(capacity / rate)
+redis.call('PEXPIRE', key, ttl)
+
+if allowed == 1 then
+    return {1, math.floor(tokens), math.ceil((capacity - tokens) / rate)}
+end
+return {0, 0, math.ceil((1 - tokens) / rate)}
@@ -0,0 +1,105 @@
+package com.org.api_web;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.org.api_common.entity.ApiCallLog;
+import com.org.api_service.service.ApiCallLogService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 调用日志入库基准：MyBatis-Plus saveBatch（逐行INSERT + 批处理执行器）对比 bulkInsert（分块多行INSERT）
+ * 需要本地MySQL；写入的数据以专用AK标记，结束后删除。
+ * 文件名不以 Test 结尾，mvn test 不会执行，在IDE中手动运行。
+ * 两组各起一个Spring上下文：默认JDBC URL（saveBatch 每行一次往返），以及仅在本基准中通过
+ * 连接属性打开 rewriteBatchedStatements（驱动把批处理改写为多行INSERT），不修改共享配置。
+ */
+@Slf4j
+public class ApiCallLogBulkInsertBenchmark {
+
+    private static final String BENCH_ACCESS_KEY = "bench-bulk-insert";
+
+    @Nested
+    @SpringBootTest
+    class DefaultUrl extends Arms {
+        DefaultUrl() {
+            super("default");
+        }
+    }
+
+    @Nested
+    @SpringBootTest(properties = "spring.datasource.hikari.data-source-properties.rewriteBatchedStatements=true")
+    class RewriteBatchedStatements extends Arms {
+        RewriteBatchedStatements() {
+            super("rewrite");
+        }
+    }
+
+    abstract static class Arms {
+
+        private final String variant;
+
+        @Autowired
+        private ApiCallLogService apiCallLogService;
+
+        Arms(String variant) {
+            this.variant = variant;
+        }
+
+        @AfterEach
+        public void cleanup() {
+            apiCallLogService.remove(new QueryWrapper<ApiCallLog>().eq("access_key", BENCH_ACCESS_KEY));
+        }
+
+        @ParameterizedTest
+        @ValueSource(ints = {1_000, 10_000, 100_000})
+        public void saveBatch(int rows) {
+            List<ApiCallLog> logs = buildLogs(rows);
+            long start = System.nanoTime();
+            apiCallLogService.saveBatch(logs, 1000);
+            report("saveBatch", variant, rows, start);
+        }
+
+        @ParameterizedTest
+        @ValueSource(ints = {1_000, 10_000, 100_000})
+        public void bulkInsert(int rows) {
+            List<ApiCallLog> logs = buildLogs(rows);
+            long start = System.nanoTime();
+            apiCallLogService.bulkInsert(logs);
+            report("bulkInsert", variant, rows, start);
+        }
+    }
+
+    private static List<ApiCallLog> buildLogs(int rows) {
+        LocalDateTime now = LocalDateTime.now();
+        List<ApiCallLog> logs = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            ApiCallLog callLog = new ApiCallLog();
+            callLog.setUserId(1L);
+            callLog.setAccessKey(BENCH_ACCESS_KEY);
+            callLog.setApiId(1L);
+            callLog.setIp("127.0.0.1");
+            callLog.setRequestParams("{\"city\":\"beijing\",\"seq\":" + i + "}");
+            callLog.setResponseResult("{\"code\":200,\"msg\":\"success\",\"data\":{\"weather\":\"sunny\"}}");
+            callLog.setStatus(1);
+            callLog.setCostTime(12L);
+            callLog.setCallTime(now);
+            logs.add(callLog);
+        }
+        return logs;
+    }
+
+    private static void report(String name, String variant, int rows, long startNanos) {
+        long costMs = Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+        log.info("[BulkInsertBenchmark] {} ({}): rows={}, cost={}ms, throughput={} rows/s",
+                name, variant, rows, costMs, rows * 1000L / costMs);
+    }
+}
@@ -1,59 +1,45 @@
 package com.org.api_web;
 
-import com.org.api_service.service.ApiCallLogService;
+import com.org.api_service.calllog.CallLogQueueConsumer;
+import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 /**
- * 临时手动触发调用日志消费，用于排查队列未落库问题。
+ * 手动触发调用日志消费，用于排查队列未落库问题。
  */
+@Slf4j
 @SpringBootTest
 public class ApiCallLogConsumeTest {
 
     @Autowired
-    private ApiCallLogService apiCallLogService;
+    private CallLogQueueConsumer callLogQueueConsumer;
 
     @Test
     public void consumeQueueOnce() {
-        apiCallLogService.consumeCallLogQueue();
+        Map<String, Object> before = callLogQueueConsumer.stats();
+        int popped = callLogQueueConsumer.consumeOnce(100);
+        Map<String, Object> after = callLogQueueConsumer.stats();
+        log.info("调用日志消费状态: {}", after);
+
+        assertTrue(popped >= 0 && popped <= 100, "弹出条数超出批大小: " + popped);
+        assertTrue(after.get("running") instanceof Boolean);
+        // 后台消费线程同时在跑，计数只增不减，且至少包含本次弹出的条数
+        assertTrue(count(after, "consumedCount") - count(before, "consumedCount") >= popped);
+        for (String key : new String[]{"insertedCount", "filteredCount", "deadLetterCount", "requeuedCount"}) {
+            assertTrue(count(after, key) >= count(before, key), key);
+        }
+        assertTrue(count(after, "deadLetterDepth") >= 0);
     }
-}
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
 
+    private static long count(Map<String, Object> stats, String key) {
+        Object value = stats.get(key);
+        assertTrue(value instanceof Number, key + " 缺失: " + stats);
+        return ((Number) value).longValue();
+    }
+}
@@ -8,15 +8,15 @@ import java.net.HttpURLConnection;
 import java.net.URL;
 
 /**
- * IP限流测试类
- * 快速发送多个请求，验证限流功能是否生效
+ * IP限流测试类（需先启动应用）
+ * 快速发送多个请求，验证 RateLimitFilter 的IP限流是否生效
  */
 public class RateLimitTest {
 
     // 测试接口地址
     private static final String TEST_URL = "http://localhost:8081/api/test/metrics/success";
 
-    // 限流阈值（应该和 ApiMetricsAspect 里的 IP_RATE_LIMIT_PER_MINUTE 一致）
+    // 限流阈值（应该和 application.yml 的 api.rate-limit.ip-limit 一致，且测试路径需在 api.rate-limit.url-patterns 中）
     private static final int RATE_LIMIT = 60;
 
     // 测试请求总数（建议设置为限流阈值的1.5倍，比如90次）
@@ -0,0 +1,187 @@
+package com.org.api_web.metrics;
+
+import com.org.api_service.calllog.CallLogMessage;
+import com.org.api_service.calllog.CallLogQueue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 落盘重启恢复测试：回放中途停止，重启后从段文件头部记录的位置继续，不重复不遗漏
+ */
+public class CallLogSpoolTest {
+
+    /** 段文件 64 字节：头部8字节 + 2条 (4+20) 字节的记录 */
+    private static final int SEGMENT_BYTES = 64;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void resumesReplayAfterRestart() throws Exception {
+        List<byte[]> payloads = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            payloads.add(String.format("call-log-payload-%03d", i).getBytes(StandardCharsets.UTF_8));
+        }
+
+        // 第一次运行：首批回放成功，之后队列不可用
+        RecordingQueue failing = new RecordingQueue(1);
+        CallLogSpool first = newSpool(failing);
+        first.start();
+        assertTrue(first.append(payloads));
+        await(() -> ((Long) first.stats().get("replayFailCount")) > 0);
+        first.stop();
+        assertEquals(List.of("call-log-payload-000", "call-log-payload-001"), failing.strings());
+        // 已回放完的第一个段文件被删除
+        assertEquals(2, segmentFiles());
+
+        // 重启：从未回放的位置继续
+        RecordingQueue healthy = new RecordingQueue(Integer.MAX_VALUE);
+        CallLogSpool second = newSpool(healthy);
+        second.start();
+        await(() -> healthy.strings().size() == 3);
+        await(() -> ((Long) second.stats().get("bytesPending")) == 0);
+        second.stop();
+        assertEquals(List.of("call-log-payload-002", "call-log-payload-003", "call-log-payload-004"), healthy.strings());
+
+        // 再次重启没有待回放数据
+        RecordingQueue idle = new RecordingQueue(Integer.MAX_VALUE);
+        CallLogSpool third = newSpool(idle);
+        third.start();
+        assertEquals(0L, third.stats().get("bytesPending"));
+        assertEquals(0, third.stats().get("segmentCount"));
+        third.stop();
+        assertTrue(idle.strings().isEmpty());
+    }
+
+    @Test
+    public void skipsCorruptSegmentOnRecovery() throws Exception {
+        Files.write(dir.resolve("segment-00000000000000000007.spool"), new byte[16]);
+        RecordingQueue queue = new RecordingQueue(Integer.MAX_VALUE);
+        CallLogSpool spool = newSpool(queue);
+        spool.start();
+        assertEquals(0, spool.stats().get("segmentCount"));
+        // 新段文件序号接在已有文件之后，不会覆盖损坏文件
+        assertTrue(spool.append(List.of("after-corrupt".getBytes(StandardCharsets.UTF_8))));
+        await(() -> queue.strings().size() == 1);
+        spool.stop();
+        assertTrue(Files.exists(dir.resolve("segment-00000000000000000007.spool")));
+        assertTrue(Files.exists(dir.resolve("segment-00000000000000000008.spool")));
+    }
+
+    @Test
+    public void skipsEmptyPayloadsWithoutLosingLaterOnes() throws Exception {
+        RecordingQueue failing = new RecordingQueue(0);
+        CallLogSpool first = newSpool(failing);
+        first.start();
+        assertTrue(first.append(List.of("before".getBytes(StandardCharsets.UTF_8), new byte[0],
+                "after".getBytes(StandardCharsets.UTF_8))));
+        first.stop();
+
+        RecordingQueue healthy = new RecordingQueue(Integer.MAX_VALUE);
+        CallLogSpool second = newSpool(healthy);
+        second.start();
+        await(() -> healthy.strings().size() == 2);
+        second.stop();
+        assertEquals(List.of("before", "after"), healthy.strings());
+    }
+
+    private CallLogSpool newSpool(CallLogQueue queue) {
+        CallLogSpool spool = new CallLogSpool();
+        ReflectionTestUtils.setField(spool, "callLogQueue", queue);
+        ReflectionTestUtils.setField(spool, "enabled", true);
+        ReflectionTestUtils.setField(spool, "dir", dir.toString());
+        ReflectionTestUtils.setField(spool, "segmentBytes", SEGMENT_BYTES);
+        ReflectionTestUtils.setField(spool, "maxBytes", 1L << 20);
+        ReflectionTestUtils.setField(spool, "latencyBudgetMs", 1000L);
+        ReflectionTestUtils.setField(spool, "replayBatchSize", 2);
+        ReflectionTestUtils.setField(spool, "replayIntervalMs", 10L);
+        ReflectionTestUtils.setField(spool, "replayTarget", "queue");
+        return spool;
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(".spool")).count();
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "等待超时");
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * 记录回放内容的队列，前 successPushes 次写入成功，之后抛异常
+     */
+    private static class RecordingQueue implements CallLogQueue {
+
+        private final int successPushes;
+        private final AtomicInteger pushes = new AtomicInteger();
+        private final List<byte[]> received = Collections.synchronizedList(new ArrayList<>());
+
+        RecordingQueue(int successPushes) {
+            this.successPushes = successPushes;
+        }
+
+        List<String> strings() {
+            synchronized (received) {
+                List<String> result = new ArrayList<>();
+                for (byte[] payload : received) {
+                    result.add(new String(payload, StandardCharsets.UTF_8));
+                }
+                return result;
+            }
+        }
+
+        @Override
+        public String mode() {
+            return "test";
+        }
+
+        @Override
+        public void push(List<byte[]> payloads) {
+            if (pushes.incrementAndGet() > successPushes) {
+                throw new IllegalStateException("queue unavailable");
+            }
+            received.addAll(payloads);
+        }
+
+        @Override
+        public List<CallLogMessage> poll(int maxCount) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void ack(List<CallLogMessage> messages) {
+        }
+
+        @Override
+        public void requeue(List<CallLogMessage> messages) {
+        }
+
+        @Override
+        public Map<String, Object> stats() {
+            return Collections.emptyMap();
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.org.api_web.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 落盘段文件测试：追加读取、头部回放位置、重启扫描、损坏文件、删除
+ */
+public class SpoolSegmentTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void createWritesHeader() throws IOException {
+        Path file = dir.resolve("segment.spool");
+        SpoolSegment segment = SpoolSegment.create(file, 256);
+        assertTrue(segment.fullyRead());
+        assertEquals(0, segment.pendingBytes());
+        segment.flush();
+        segment.close();
+
+        ByteBuffer raw = ByteBuffer.wrap(Files.readAllBytes(file));
+        assertEquals(256, raw.capacity());
+        assertEquals(SpoolSegment.HEADER_BYTES, raw.getInt(4));
+        assertEquals(0, raw.getInt(SpoolSegment.HEADER_BYTES));
+    }
+
+    @Test
+    public void appendsAndReadsInOrder() throws IOException {
+        SpoolSegment segment = SpoolSegment.create(dir.resolve("segment.spool"), 256);
+        assertTrue(segment.append(bytes("a")));
+        assertTrue(segment.append(bytes("bb")));
+        assertTrue(segment.append(bytes("ccc")));
+        assertEquals(3 * 4 + 6, segment.pendingBytes());
+
+        List<byte[]> out = new ArrayList<>();
+        int end = segment.read(2, out);
+        assertEquals(List.of("a", "bb"), strings(out));
+        // read 不移动位置
+        assertEquals(3 * 4 + 6, segment.pendingBytes());
+        segment.commit(end);
+        assertEquals(4 + 3, segment.pendingBytes());
+        segment.close();
+    }
+
+    @Test
+    public void rejectsEmptyRecord() throws IOException {
+        // 长度0是重启扫描的结束标记，写入空记录会让其后的记录在重启后丢失
+        Path file = dir.resolve("segment.spool");
+        SpoolSegment segment = SpoolSegment.create(file, 256);
+        assertTrue(segment.append(bytes("before")));
+        assertThrows(IllegalArgumentException.class, () -> segment.append(new byte[0]));
+        assertTrue(segment.append(bytes("after")));
+        segment.flush();
+        segment.close();
+
+        SpoolSegment reopened = SpoolSegment.open(file);
+        assertNotNull(reopened);
+        List<byte[]> out = new ArrayList<>();
+        reopened.read(10, out);
+        assertEquals(List.of("before", "after"), strings(out));
+        reopened.close();
+    }
+
+    @Test
+    public void rejectsAppendBeyondCapacity() throws IOException {
+        SpoolSegment segment = SpoolSegment.create(dir.resolve("segment.spool"), SpoolSegment.HEADER_BYTES + 4 + 10 + 4);
+        assertTrue(segment.append(new byte[10]));
+        assertFalse(segment.append(new byte[1]));
+        segment.close();
+    }
+
+    @Test
+    public void reopenResumesFromCommittedOffset() throws IOException {
+        Path file = dir.resolve("segment.spool");
+        SpoolSegment segment = SpoolSegment.create(file, 256);
+        segment.append(bytes("first"));
+        segment.append(bytes("second"));
+        segment.append(bytes("third"));
+        List<byte[]> out = new ArrayList<>();
+        segment.commit(segment.read(2, out));
+        segment.flush();
+        segment.close();
+
+        // 头部记录的已回放位置
+        int committed = ByteBuffer.wrap(Files.readAllBytes(file)).getInt(4);
+        assertEquals(SpoolSegment.HEADER_BYTES + 4 + 5 + 4 + 6, committed);
+
+        SpoolSegment reopened = SpoolSegment.open(file);
+        assertNotNull(reopened);
+        assertEquals(4 + 5, reopened.pendingBytes());
+        out.clear();
+        reopened.read(10, out);
+        assertEquals(List.of("third"), strings(out));
+        reopened.close();
+    }
+
+    @Test
+    public void scanStopsAtFirstZeroLength() throws IOException {
+        Path file = dir.resolve("segment.spool");
+        SpoolSegment segment = SpoolSegment.create(file, 1024);
+        segment.append(bytes("a"));
+        segment.append(bytes("b"));
+        segment.flush();
+        segment.close();
+
+        SpoolSegment reopened = SpoolSegment.open(file);
+        assertNotNull(reopened);
+        assertEquals(2 * (4 + 1), reopened.pendingBytes());
+        // 继续追加在已有记录之后，不覆盖
+        assertTrue(reopened.append(bytes("c")));
+        reopened.flush();
+        reopened.close();
+
+        SpoolSegment again = SpoolSegment.open(file);
+        List<byte[]> out = new ArrayList<>();
+        again.read(10, out);
+        assertEquals(List.of("a", "b", "c"), strings(out));
+        again.close();
+    }
+
+    @Test
+    public void scanStopsAtTornRecord() throws IOException {
+        Path file = dir.resolve("segment.spool");
+        SpoolSegment segment = SpoolSegment.create(file, 64);
+        segment.append(bytes("ok"));
+        segment.flush();
+        segment.close();
+        // 长度已写但超出文件末尾（未写完的记录）
+        writeInt(file, SpoolSegment.HEADER_BYTES + 4 + 2, 1000);
+
+        SpoolSegment reopened = SpoolSegment.open(file);
+        assertNotNull(reopened);
+        List<byte[]> out = new ArrayList<>();
+        reopened.read(10, out);
+        assertEquals(List.of("ok"), strings(out));
+        assertTrue(reopened.append(bytes("next")));
+        reopened.close();
+    }
+
+    @Test
+    public void clampsReadPositionToScannedEnd() throws IOException {
+        Path file = dir.resolve("segment.spool");
+        SpoolSegment segment = SpoolSegment.create(file, 256);
+        segment.append(bytes("a"));
+        segment.flush();
+        segment.close();
+        writeInt(file, 4, 200);
+
+        SpoolSegment reopened = SpoolSegment.open(file);
+        assertNotNull(reopened);
+        assertTrue(reopened.fullyRead());
+        reopened.close();
+    }
+
+    @Test
+    public void rejectsCorruptHeader() throws IOException {
+        Path tooShort = dir.resolve("short.spool");
+        Files.write(tooShort, new byte[SpoolSegment.HEADER_BYTES - 1]);
+        assertNull(SpoolSegment.open(tooShort));
+
+        Path badMagic = dir.resolve("magic.spool");
+        SpoolSegment.create(badMagic, 64).close();
+        writeInt(badMagic, 0, 0x12345678);
+        assertNull(SpoolSegment.open(badMagic));
+
+        Path readPosInHeader = dir.resolve("low.spool");
+        SpoolSegment.create(readPosInHeader, 64).close();
+        writeInt(readPosInHeader, 4, SpoolSegment.HEADER_BYTES - 1);
+        assertNull(SpoolSegment.open(readPosInHeader));
+
+        Path readPosPastEnd = dir.resolve("high.spool");
+        SpoolSegment.create(readPosPastEnd, 64).close();
+        writeInt(readPosPastEnd, 4, 65);
+        assertNull(SpoolSegment.open(readPosPastEnd));
+    }
+
+    @Test
+    public void deleteRemovesFile() throws IOException {
+        for (int i = 0; i < 32; i++) {
+            Path file = dir.resolve("segment-" + i + ".spool");
+            SpoolSegment segment = SpoolSegment.create(file, 1 << 20);
+            segment.append(bytes("x"));
+            segment.delete();
+            assertFalse(Files.exists(file));
+        }
+    }
+
+    private static void writeInt(Path file, int offset, int value) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, value), offset);
+        }
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> strings(List<byte[]> payloads) {
+        List<String> result = new ArrayList<>();
+        for (byte[] payload : payloads) {
+            result.add(new String(payload, StandardCharsets.UTF_8));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,13 @@
+-- 调用日志查询索引（配合 /api/user/call-log、/api/admin/call-log 的 page / scroll 接口）
+-- 游标分页按 (call_time, id) 倒序 seek：WHERE 过滤列 = ? AND (call_time < ? OR (call_time = ? AND id < ?))
+-- 索引以过滤列开头、(call_time, id) 结尾，翻到多深都只读取一页的索引行，且不需要额外排序
+-- 分区表（见 partition_api_call_log.sql）上的索引为分区内局部索引，带时间范围的查询先裁剪分区再走索引
+
+-- 用户查询自己的调用日志
+ALTER TABLE api_call_log ADD INDEX idx_user_time (user_id, call_time, id);
+
+-- 管理员按AK查询
+ALTER TABLE api_call_log ADD INDEX idx_ak_time (access_key, call_time, id);
+
+-- 管理员不带过滤条件按时间浏览
+ALTER TABLE api_call_log ADD INDEX idx_time (call_time, id);
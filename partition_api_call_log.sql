@@ -0,0 +1,25 @@
+-- 调用日志按时间分区（MySQL 原生 RANGE 分区，按 call_time 的天数）
+-- 1. 分区键必须包含在每个唯一索引中：主键改为 (id, call_time)，call_time 改为 NOT NULL
+-- 2. 分区表不支持外键，如 api_call_log 上有外键需先删除
+-- 3. ALTER TABLE ... PARTITION BY 会重建整张表，大表请在低峰期执行（或使用 pt-online-schema-change）
+-- 4. 之后的分区由 CallLogPartitionManager 自动维护（api.call-log.partition.*）：
+--    提前创建未来分区（拆分 p_future），超过保留期的分区直接 DROP PARTITION，不再执行大批量 DELETE
+-- 5. 带 call_time 范围的查询由MySQL自动裁剪到覆盖的分区（EXPLAIN 的 partitions 列可确认）
+
+ALTER TABLE api_call_log
+    MODIFY call_time DATETIME NOT NULL COMMENT '调用时间',
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, call_time);
+
+-- 按月分区：p_history 存放历史数据，p_future 兜底未来数据（名称固定，自动维护依赖它）
+-- 执行前把日期改为当前月份
+ALTER TABLE api_call_log
+    PARTITION BY RANGE (TO_DAYS(call_time)) (
+        PARTITION p_history VALUES LESS THAN (TO_DAYS('2026-10-01')),
+        PARTITION p202610 VALUES LESS THAN (TO_DAYS('2026-11-01')),
+        PARTITION p_future VALUES LESS THAN MAXVALUE
+    );
+
+-- 查看分区及行数
+-- SELECT PARTITION_NAME, PARTITION_DESCRIPTION, TABLE_ROWS FROM information_schema.PARTITIONS
+-- WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'api_call_log' ORDER BY PARTITION_ORDINAL_POSITION;
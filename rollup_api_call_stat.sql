@@ -0,0 +1,63 @@
+-- 调用日志汇总表（按小时 / 按天），由 CallStatRollupJob 增量汇总（api.call-log.rollup.*）
+-- 1. 维度 (api_id, user_id, 周期)，api_id / user_id 为空的日志记为 0
+-- 2. 延迟直方图按耗时分桶计数：<=10ms、<=50ms、<=100ms、<=300ms、<=1s、<=3s、>3s，可直接SUM合并
+-- 3. 水位表记录已汇总到的 api_call_log.id；汇总与推进水位在同一事务内，已汇总的行不会重复计入
+--    汇总到 pending_id 之前，先确认 pending_at 之前开启的写事务都已结束（innodb_trx），id 较小但提交较晚的日志不会被跳过
+-- 4. 首次启用时水位为 0，会分批补齐全部历史日志（每批 batch-size 个id）
+-- 5. 统计接口按时间范围查询：整天走日表，首尾不足一天的部分走小时表
+
+CREATE TABLE IF NOT EXISTS api_call_stat_hourly (
+    api_id       BIGINT   NOT NULL COMMENT '接口ID',
+    user_id      BIGINT   NOT NULL COMMENT '用户ID',
+    stat_hour    DATETIME NOT NULL COMMENT '统计小时（整点）',
+    calls        BIGINT   NOT NULL DEFAULT 0 COMMENT '调用次数',
+    success      BIGINT   NOT NULL DEFAULT 0 COMMENT '成功次数',
+    fail         BIGINT   NOT NULL DEFAULT 0 COMMENT '失败次数',
+    cost_sum     BIGINT   NOT NULL DEFAULT 0 COMMENT '累计耗时（毫秒）',
+    cost_min     BIGINT   NOT NULL DEFAULT 0 COMMENT '最小耗时（毫秒）',
+    cost_max     BIGINT   NOT NULL DEFAULT 0 COMMENT '最大耗时（毫秒）',
+    lat_le_10    BIGINT   NOT NULL DEFAULT 0 COMMENT '耗时<=10ms次数',
+    lat_le_50    BIGINT   NOT NULL DEFAULT 0 COMMENT '耗时<=50ms次数',
+    lat_le_100   BIGINT   NOT NULL DEFAULT 0 COMMENT '耗时<=100ms次数',
+    lat_le_300   BIGINT   NOT NULL DEFAULT 0 COMMENT '耗时<=300ms次数',
+    lat_le_1000  BIGINT   NOT NULL DEFAULT 0 COMMENT '耗时<=1s次数',
+    lat_le_3000  BIGINT   NOT NULL DEFAULT 0 COMMENT '耗时<=3s次数',
+    lat_gt_3000  BIGINT   NOT NULL DEFAULT 0 COMMENT '耗时>3s次数',
+    PRIMARY KEY (api_id, user_id, stat_hour),
+    KEY idx_hour (stat_hour),
+    KEY idx_user_hour (user_id, stat_hour)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COMMENT = '接口调用小时汇总';
+
+CREATE TABLE IF NOT EXISTS api_call_stat_daily (
+    api_id       BIGINT NOT NULL COMMENT '接口ID',
+    user_id      BIGINT NOT NULL COMMENT '用户ID',
+    stat_date    DATE   NOT NULL COMMENT '统计日期',
+    calls        BIGINT NOT NULL DEFAULT 0 COMMENT '调用次数',
+    success      BIGINT NOT NULL DEFAULT 0 COMMENT '成功次数',
+    fail         BIGINT NOT NULL DEFAULT 0 COMMENT '失败次数',
+    cost_sum     BIGINT NOT NULL DEFAULT 0 COMMENT '累计耗时（毫秒）',
+    cost_min     BIGINT NOT NULL DEFAULT 0 COMMENT '最小耗时（毫秒）',
+    cost_max     BIGINT NOT NULL DEFAULT 0 COMMENT '最大耗时（毫秒）',
+    lat_le_10    BIGINT NOT NULL DEFAULT 0 COMMENT '耗时<=10ms次数',
+    lat_le_50    BIGINT NOT NULL DEFAULT 0 COMMENT '耗时<=50ms次数',
+    lat_le_100   BIGINT NOT NULL DEFAULT 0 COMMENT '耗时<=100ms次数',
+    lat_le_300   BIGINT NOT NULL DEFAULT 0 COMMENT '耗时<=300ms次数',
+    lat_le_1000  BIGINT NOT NULL DEFAULT 0 COMMENT '耗时<=1s次数',
+    lat_le_3000  BIGINT NOT NULL DEFAULT 0 COMMENT '耗时<=3s次数',
+    lat_gt_3000  BIGINT NOT NULL DEFAULT 0 COMMENT '耗时>3s次数',
+    PRIMARY KEY (api_id, user_id, stat_date),
+    KEY idx_date (stat_date),
+    KEY idx_user_date (user_id, stat_date)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COMMENT = '接口调用日汇总';
+
+CREATE TABLE IF NOT EXISTS api_call_stat_watermark (
+    name        VARCHAR(64) NOT NULL COMMENT '汇总任务名',
+    last_id     BIGINT      NOT NULL DEFAULT 0 COMMENT '已汇总到的 api_call_log.id（含）',
+    pending_id  BIGINT      NOT NULL DEFAULT 0 COMMENT '上次观察到的最大id，下一轮汇总到此为止',
+    pending_at  DATETIME    NULL COMMENT '观察到 pending_id 的数据库时间，此前开启的写事务全部结束后置空',
+    update_time DATETIME    NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (name)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COMMENT = '调用日志汇总水位';
+
+-- 已按旧版本建表的环境补充列：
+-- ALTER TABLE api_call_stat_watermark ADD COLUMN pending_at DATETIME NULL COMMENT '观察到 pending_id 的数据库时间，此前开启的写事务全部结束后置空' AFTER pending_id;